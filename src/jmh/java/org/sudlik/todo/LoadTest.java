@@ -0,0 +1,211 @@
+package org.sudlik.todo;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against the application started in the given mode: each of {@code connections} clients sends
+ * a request, waits for the response and sends the next one. After a warm-up it prints throughput and latency
+ * percentiles for every connection count, so runs in different modes can be compared line by line.
+ *
+ * <p>Options are {@code key=value} arguments: {@code mode} (servlet or reactive), {@code scenario} (list or add),
+ * {@code connections} (comma separated), {@code warmup} and {@code duration} in seconds, {@code profiles},
+ * {@code properties} (comma separated {@code key=value} application properties), and {@code slow}: milliseconds an
+ * added todo's body is held back half way, like a slow client that keeps a request thread busy while it uploads. Run
+ * with {@code profiles=virtual} on Java 21 to compare against virtual threads, or with {@code profiles=coalescing} to
+ * compare group commits of added todos against a commit per request.
+ */
+public class LoadTest {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(Map.of(
+                "mode", "servlet",
+                "scenario", "list",
+                "connections", "16,64,256,1024",
+                "warmup", "10",
+                "duration", "20",
+                "profiles", "",
+                "properties", "",
+                "slow", "0"));
+
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+
+            if (option.length != 2 || !options.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + options.keySet());
+            }
+
+            options.put(option[0], option[1]);
+        }
+
+        try (ConfigurableApplicationContext context = start(
+                options.get("mode"),
+                options.get("profiles"),
+                options.get("properties"))) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            LoadTest loadTest = new LoadTest(
+                    client,
+                    URI.create("http://localhost:" + port + "/todos"),
+                    options.get("scenario"),
+                    Duration.ofMillis(Long.parseLong(options.get("slow"))));
+
+            loadTest.seed(100);
+
+            for (String connections : options.get("connections").split(",")) {
+                loadTest.run(Integer.parseInt(connections.trim()), Duration.ofSeconds(Long.parseLong(options.get("warmup"))));
+
+                Result result = loadTest.run(
+                        Integer.parseInt(connections.trim()),
+                        Duration.ofSeconds(Long.parseLong(options.get("duration"))));
+
+                System.out.printf(
+                        "mode=%s profiles=%s properties=%s scenario=%s connections=%s: %.0f req/s, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms, errors %d%n",
+                        options.get("mode"),
+                        options.get("profiles"),
+                        options.get("properties"),
+                        options.get("scenario"),
+                        connections.trim(),
+                        result.throughput,
+                        millis(result.latency.getValueAtPercentile(50)),
+                        millis(result.latency.getValueAtPercentile(99)),
+                        millis(result.latency.getValueAtPercentile(99.9)),
+                        millis(result.latency.getMaxValue()),
+                        result.errors);
+            }
+        }
+    }
+
+    private final HttpClient client;
+    private final URI todos;
+    private final String scenario;
+    private final Duration slow;
+
+    private LoadTest(HttpClient client, URI todos, String scenario, Duration slow) {
+        this.client = client;
+        this.todos = todos;
+        this.scenario = scenario;
+        this.slow = slow;
+    }
+
+    private static ConfigurableApplicationContext start(String mode, String profiles, String properties) {
+        return new SpringApplicationBuilder(Application.class)
+                .properties(
+                        "server.port=0",
+                        "logging.level.root=warn",
+                        "todo.cache.enabled=false",
+                        "spring.main.web-application-type=" + mode)
+                .properties(properties.isEmpty() ? new String[0] : properties.split(","))
+                .profiles(profiles.isEmpty() ? new String[0] : profiles.split(","))
+                .run();
+    }
+
+    private void seed(int todoCount) throws Exception {
+        for (int i = 0; i < todoCount; i++) {
+            client.send(add(Duration.ZERO), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    private Result run(int connections, Duration duration) {
+        Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<CompletableFuture<Void>> clients = new ArrayList<>();
+
+        recorder.reset();
+
+        for (int i = 0; i < connections; i++) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+
+            loop(recorder, errors, deadline, done);
+            clients.add(done);
+        }
+
+        CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+
+        Histogram latency = recorder.getIntervalHistogram();
+
+        return new Result(latency.getTotalCount() / (double) duration.toSeconds(), latency, errors.get());
+    }
+
+    private void loop(Recorder recorder, AtomicLong errors, long deadline, CompletableFuture<Void> done) {
+        long start = System.nanoTime();
+
+        if (start > deadline) {
+            done.complete(null);
+
+            return;
+        }
+
+        client.sendAsync(scenario.equals("add") ? add(slow) : list(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, e) -> {
+                    recorder.recordValue(Math.min(System.nanoTime() - start, MAX_LATENCY_NANOS));
+
+                    if (e != null || response.statusCode() >= 300) {
+                        errors.incrementAndGet();
+                    }
+
+                    loop(recorder, errors, deadline, done);
+                });
+    }
+
+    private HttpRequest list() {
+        return HttpRequest.newBuilder(todos.resolve("todos?limit=100")).header("Accept", "application/json").GET().build();
+    }
+
+    private HttpRequest add(Duration delay) {
+        byte[] body = "{\"description\":\"load test todo\"}".getBytes(StandardCharsets.UTF_8);
+        int half = body.length / 2;
+        Flux<ByteBuffer> chunks = Flux.concat(
+                Mono.just(ByteBuffer.wrap(body, 0, half)),
+                Mono.just(ByteBuffer.wrap(body, half, body.length - half)).delayElement(delay));
+
+        return HttpRequest.newBuilder(todos)
+                .header("Content-Type", "application/json")
+                .POST(delay.isZero()
+                        ? HttpRequest.BodyPublishers.ofByteArray(body)
+                        : HttpRequest.BodyPublishers.fromPublisher(
+                                JdkFlowAdapter.publisherToFlowPublisher(chunks),
+                                body.length))
+                .build();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static class Result {
+
+        final double throughput;
+        final Histogram latency;
+        final long errors;
+
+        Result(double throughput, Histogram latency, long errors) {
+            this.throughput = throughput;
+            this.latency = latency;
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.sudlik.todo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ObjectIdBenchmark {
+
+    private final UUID id = ObjectId.generate();
+    private final String formatted = ObjectId.format(id);
+
+    @Benchmark
+    public String generate() {
+        return ObjectId.format(ObjectId.generate());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateContended() {
+        return ObjectId.format(ObjectId.generate());
+    }
+
+    @Benchmark
+    public String randomUuid() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String randomUuidContended() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @Benchmark
+    public String format() {
+        return ObjectId.format(id);
+    }
+
+    @Benchmark
+    public Optional<UUID> parse() {
+        return ObjectId.parse(formatted);
+    }
+}
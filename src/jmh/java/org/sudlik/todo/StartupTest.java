@@ -0,0 +1,167 @@
+package org.sudlik.todo;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the jar built with the {@code fast-startup} Maven profile again and again in a new JVM each time, and measures
+ * how long it takes from launching the JVM to the first successful {@code GET /todos}, next to the time to ready from
+ * the application's own startup report. Each variant turns on the class data sharing archive, the
+ * {@code fast-startup} Spring profile, or both, so a CI run prints one comparable line per variant.
+ *
+ * <p>Options are {@code key=value} arguments: {@code variants} (comma separated, out of baseline, cds, profile and
+ * fast-startup), {@code runs}, {@code jar} and {@code archive}. The archive is used with {@code -Xshare:on}, so a run
+ * fails instead of silently starting without it when it does not fit the JVM or the jar.
+ */
+public class StartupTest {
+
+    private static final Pattern READY = Pattern.compile("Started in (\\d+) ms since the JVM started");
+    private static final long TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(Map.of(
+                "variants", "baseline,cds,profile,fast-startup",
+                "runs", "5",
+                "jar", "target/todo-1.0-SNAPSHOT.jar",
+                "archive", "target/todo.jsa"));
+
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+
+            if (option.length != 2 || !options.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + options.keySet());
+            }
+
+            options.put(option[0], option[1]);
+        }
+
+        for (String variant : options.get("variants").split(",")) {
+            List<Long> ready = new ArrayList<>();
+            List<Long> firstResponse = new ArrayList<>();
+
+            for (int i = 0; i < Integer.parseInt(options.get("runs")); i++) {
+                Run run = start(command(variant.trim(), options.get("jar"), options.get("archive")));
+
+                ready.add(run.readyMillis);
+                firstResponse.add(run.firstResponseMillis);
+            }
+
+            System.out.printf(
+                    "variant=%s runs=%d: ready p50 %d ms, first response p50 %d ms, min %d ms, max %d ms%n",
+                    variant.trim(),
+                    firstResponse.size(),
+                    median(ready),
+                    median(firstResponse),
+                    Collections.min(firstResponse),
+                    Collections.max(firstResponse));
+        }
+    }
+
+    private static List<String> command(String variant, String jar, String archive) {
+        List<String> command = new ArrayList<>();
+
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+
+        if (variant.equals("cds") || variant.equals("fast-startup")) {
+            command.addAll(List.of("-Xshare:on", "-XX:SharedArchiveFile=" + archive));
+        } else if (!variant.equals("baseline") && !variant.equals("profile")) {
+            throw new IllegalArgumentException("Unknown variant " + variant);
+        }
+
+        command.addAll(List.of("-jar", jar));
+
+        if (variant.equals("profile") || variant.equals("fast-startup")) {
+            command.add("--spring.profiles.active=fast-startup");
+        }
+
+        return command;
+    }
+
+    private static Run start(List<String> command) throws IOException, InterruptedException {
+        int port = freePort();
+        Path log = Files.createTempFile("startup", ".log");
+        List<String> portCommand = new ArrayList<>(command);
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest list = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/todos"))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        portCommand.add("--server.port=" + port);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(portCommand)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+
+        try {
+            while (true) {
+                if (!process.isAlive() || System.nanoTime() - start > TIMEOUT_NANOS) {
+                    throw new IllegalStateException(
+                            String.join(" ", command) + " did not start:\n" + Files.readString(log));
+                }
+
+                try {
+                    if (client.send(list, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+
+                Thread.sleep(10);
+            }
+
+            long firstResponseMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Matcher ready = READY.matcher(Files.readString(log));
+
+            return new Run(ready.find() ? Long.parseLong(ready.group(1)) : -1, firstResponseMillis);
+        } finally {
+            process.destroy();
+            process.waitFor();
+            Files.delete(log);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(List<Long> values) {
+        Long[] sorted = values.toArray(Long[]::new);
+
+        Arrays.sort(sorted);
+
+        return sorted[sorted.length / 2];
+    }
+
+    private static class Run {
+
+        final long readyMillis;
+        final long firstResponseMillis;
+
+        Run(long readyMillis, long firstResponseMillis) {
+            this.readyMillis = readyMillis;
+            this.firstResponseMillis = firstResponseMillis;
+        }
+    }
+}
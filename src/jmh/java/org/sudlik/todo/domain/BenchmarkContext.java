@@ -0,0 +1,81 @@
+package org.sudlik.todo.domain;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.sudlik.todo.Application;
+import org.sudlik.todo.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application without the web layer and fills the store, so repository benchmarks measure the same beans
+ * the controller uses. The read-through cache is off unless a benchmark switches it on: by default these numbers are
+ * for the storage engine itself.
+ */
+class BenchmarkContext {
+
+    static final int COMPLETED_EVERY = 10;
+
+    private static final int INSERT_BATCH_SIZE = 10000;
+    private static final String CACHE_ENABLED = "todo.cache.enabled";
+
+    /**
+     * Starts the application with the given storage engine, {@code jpa} or {@code memory}; the latter is switched on by
+     * the profile of the same name. Properties are given as {@code name=value} and may set {@value CACHE_ENABLED}.
+     */
+    static ConfigurableApplicationContext start(String engine, String ...properties) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE);
+        // Passed as arguments: properties of the builder are only defaults, which application.yml overrides.
+        List<String> args = new ArrayList<>(List.of("--logging.level.root=warn"));
+        boolean cacheSet = false;
+
+        for (String property : properties) {
+            args.add("--" + property);
+            cacheSet |= property.startsWith(CACHE_ENABLED + "=");
+        }
+
+        // Not overridden by a later argument: a property given twice reads as both values joined by a comma.
+        if (!cacheSet) {
+            args.add("--" + CACHE_ENABLED + "=false");
+        }
+
+        if (engine.equals("memory")) {
+            builder.profiles("memory");
+        }
+
+        return builder.run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Inserts {@code rows} todos of the default owner, every {@value COMPLETED_EVERY}th of them completed, and returns
+     * their ids in insertion order.
+     */
+    static UUID[] fill(TodoRepository todoRepository, int rows) {
+        return fill(todoRepository, TodoEntity.DEFAULT_OWNER, rows);
+    }
+
+    static UUID[] fill(TodoRepository todoRepository, String owner, int rows) {
+        UUID[] ids = new UUID[rows];
+        List<TodoEntity> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+
+        for (int i = 0; i < rows; i++) {
+            ids[i] = ObjectId.generate();
+            batch.add(new TodoEntity(
+                    ids[i],
+                    owner,
+                    "benchmark todo " + i,
+                    i % COMPLETED_EVERY == 0 ? TodoEntity.Status.COMPLETED : TodoEntity.Status.NEW));
+
+            if (batch.size() == INSERT_BATCH_SIZE || i == rows - 1) {
+                todoRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+
+        return ids;
+    }
+}
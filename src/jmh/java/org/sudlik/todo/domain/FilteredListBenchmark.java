@@ -0,0 +1,101 @@
+package org.sudlik.todo.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A keyset page of todos filtered by status on H2, as before and after the status indexes and the queries ordered by
+ * their whole prefix. {@code indexes=false} drops the indexes that lead with or include the status, as the table was
+ * before them; {@code order=id} orders by id alone, as the queries did before, which H2 answers by sorting every
+ * matching row even when the index is there.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class FilteredListBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"true", "false"})
+    private boolean indexes;
+
+    @Param({"prefix", "id"})
+    private String order;
+
+    private ConfigurableApplicationContext context;
+    private TodoRepository todoRepository;
+    private EntityManager entityManager;
+    private UUID[] ids;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("jpa");
+        todoRepository = context.getBean(TodoRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        ids = BenchmarkContext.fill(todoRepository, rows);
+
+        if (!indexes) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+            jdbcTemplate.execute("drop index todo_entity_owner_status_id_idx");
+            jdbcTemplate.execute("drop index todo_entity_status_idx");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TodoEntity> findFirstPageByStatus() {
+        return findPage(null);
+    }
+
+    @Benchmark
+    public List<TodoEntity> findPageByStatus() {
+        return findPage(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    private List<TodoEntity> findPage(@Nullable UUID after) {
+        if (order.equals("prefix")) {
+            return todoRepository.findPage(TodoEntity.DEFAULT_OWNER, TodoEntity.Status.COMPLETED, after, PAGE_SIZE);
+        }
+
+        TypedQuery<TodoEntity> query = entityManager
+                .createQuery("select t from TodoEntity t where t.owner = :owner and t.status = :status "
+                        + (after == null ? "" : "and t.id > :after ")
+                        + "order by t.id", TodoEntity.class)
+                .setParameter("owner", TodoEntity.DEFAULT_OWNER)
+                .setParameter("status", TodoEntity.Status.COMPLETED)
+                .setMaxResults(PAGE_SIZE);
+
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+
+        return query.getResultList();
+    }
+}
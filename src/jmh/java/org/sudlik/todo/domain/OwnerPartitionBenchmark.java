@@ -0,0 +1,125 @@
+package org.sudlik.todo.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many owners with Zipf-distributed list sizes, the k-th largest holding about {@code 1/k} of the rows of the largest.
+ * Listing, counting and erasing the list of the largest and of the smallest owner should differ by their own sizes,
+ * not by the size of the table: with {@code rows=1000000} and the default {@value OWNERS} owners that is about 134000
+ * todos against 134. With {@code cache=true} the read-through cache is on, so a write or an erase of one owner has to
+ * evict that owner's pages and todos without walking those cached for the others.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class OwnerPartitionBenchmark {
+
+    static final int OWNERS = 1000;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    @Param({"jpa", "memory"})
+    private String engine;
+
+    @Param({"largest", "smallest"})
+    private String list;
+
+    @Param({"false", "true"})
+    private boolean cache;
+
+    private ConfigurableApplicationContext context;
+    private TodoRepository todoRepository;
+    private String owner;
+    private int size;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(engine, "todo.cache.enabled=" + cache);
+        todoRepository = context.getBean(TodoRepository.class);
+
+        double harmonic = 0;
+
+        for (int k = 1; k <= OWNERS; k++) {
+            harmonic += 1.0 / k;
+        }
+
+        for (int k = 1; k <= OWNERS; k++) {
+            BenchmarkContext.fill(todoRepository, owner(k), listSize(k, harmonic));
+        }
+
+        int rank = list.equals("largest") ? 1 : OWNERS;
+
+        owner = owner(rank);
+        size = listSize(rank, harmonic);
+    }
+
+    /**
+     * Puts back the list erased by {@link #deleteInBulkByOwner} in the iteration before.
+     */
+    @Setup(Level.Iteration)
+    public void refill() {
+        if (todoRepository.countByOwner(owner) == 0) {
+            BenchmarkContext.fill(todoRepository, owner, size);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TodoEntity> findFirstPage() {
+        return todoRepository.findPage(owner, null, null, 100);
+    }
+
+    @Benchmark
+    public List<TodoEntity> findFirstPageByStatus() {
+        return todoRepository.findPage(owner, TodoEntity.Status.COMPLETED, null, 100);
+    }
+
+    @Benchmark
+    public long countByOwner() {
+        return todoRepository.countByOwner(owner);
+    }
+
+    @Benchmark
+    public long countByOwnerAndStatus() {
+        return todoRepository.countByOwnerAndStatus(owner, TodoEntity.Status.COMPLETED);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public int deleteInBulkByOwner() {
+        return todoRepository.deleteInBulkByOwner(owner);
+    }
+
+    private static String owner(int rank) {
+        return "owner-" + rank;
+    }
+
+    private int listSize(int rank, double harmonic) {
+        return Math.max(1, (int) Math.round(rows / (rank * harmonic)));
+    }
+}
@@ -0,0 +1,80 @@
+package org.sudlik.todo.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.sudlik.todo.ObjectId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TodoRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"jpa", "memory"})
+    private String engine;
+
+    private ConfigurableApplicationContext context;
+    private TodoRepository todoRepository;
+    private UUID[] ids;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(engine);
+        todoRepository = context.getBean(TodoRepository.class);
+        ids = BenchmarkContext.fill(todoRepository, rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TodoEntity save() {
+        return todoRepository.save(new TodoEntity(ObjectId.generate(), "benchmark todo"));
+    }
+
+    @Benchmark
+    public Optional<TodoEntity> findById() {
+        return todoRepository.findById(randomId());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Collection<TodoEntity> findByStatus() {
+        return todoRepository.findByOwnerAndStatus(TodoEntity.DEFAULT_OWNER, TodoEntity.Status.COMPLETED);
+    }
+
+    @Benchmark
+    public List<TodoEntity> findPageByStatus() {
+        return todoRepository.findPage(TodoEntity.DEFAULT_OWNER, TodoEntity.Status.COMPLETED, randomId(), 100);
+    }
+
+    @Benchmark
+    public long countByStatus() {
+        return todoRepository.countByOwnerAndStatus(TodoEntity.DEFAULT_OWNER, TodoEntity.Status.COMPLETED);
+    }
+
+    private UUID randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
@@ -0,0 +1,66 @@
+package org.sudlik.todo.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Erasing a filled table, one shot per refill: {@code deleteAll} removes entity by entity, {@code deleteInBulkByOwner}
+ * is the single statement used by {@code DELETE /todos}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TodoRepositoryDeleteBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"jpa", "memory"})
+    private String engine;
+
+    private ConfigurableApplicationContext context;
+    private TodoRepository todoRepository;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(engine);
+        todoRepository = context.getBean(TodoRepository.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        BenchmarkContext.fill(todoRepository, rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void deleteAll() {
+        todoRepository.deleteAll();
+    }
+
+    @Benchmark
+    public int deleteInBulkByOwner() {
+        return todoRepository.deleteInBulkByOwner(TodoEntity.DEFAULT_OWNER);
+    }
+}
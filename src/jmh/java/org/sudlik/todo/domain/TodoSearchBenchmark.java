@@ -0,0 +1,80 @@
+package org.sudlik.todo.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search by a word of a single todo, by a word of every todo filtered by status, and the index rebuild done at
+ * startup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TodoSearchBenchmark {
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    @Param({"jpa", "memory"})
+    private String engine;
+
+    private ConfigurableApplicationContext context;
+    private TodoRepository todoRepository;
+    private TodoSearch todoSearch;
+    private UUID[] ids;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(engine);
+        todoRepository = context.getBean(TodoRepository.class);
+        todoSearch = context.getBean(TodoSearch.class);
+        ids = BenchmarkContext.fill(todoRepository, rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TodoEntity> searchRareWord() {
+        String word = String.valueOf(ThreadLocalRandom.current().nextInt(rows));
+
+        return todoSearch.search(TodoEntity.DEFAULT_OWNER, word, null, null, 100);
+    }
+
+    @Benchmark
+    public List<TodoEntity> searchCommonWordByStatus() {
+        return todoSearch.search(
+                TodoEntity.DEFAULT_OWNER,
+                "benchmark todo",
+                TodoEntity.Status.COMPLETED,
+                randomId(),
+                100);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public TodoSearchIndex build() {
+        return TodoSearchIndex.build(todoRepository);
+    }
+
+    private UUID randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
@@ -0,0 +1,59 @@
+package org.sudlik.todo.presenter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.sudlik.todo.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PresenterSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private TodoPresenter todoPresenter;
+    private PresenterCollection<TodoPresenter> presenterCollection;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        todoPresenter = createTodoPresenter(0);
+
+        List<TodoPresenter> todoPresenters = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            todoPresenters.add(createTodoPresenter(i));
+        }
+
+        presenterCollection = new PresenterCollection<>(todoPresenters, ObjectId.format(ObjectId.generate()));
+    }
+
+    @Benchmark
+    public byte[] serializeTodo() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(todoPresenter);
+    }
+
+    @Benchmark
+    public byte[] serializeCollection() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(presenterCollection);
+    }
+
+    private static TodoPresenter createTodoPresenter(int i) {
+        return new TodoPresenter(ObjectId.format(ObjectId.generate()), "todo description " + i, i % 2 == 0 ? "new" : "completed");
+    }
+}
@@ -0,0 +1,53 @@
+package org.sudlik.todo.ui;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.sudlik.todo.presenter.ErrorPresenter;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ResponseEntityFactoryBenchmark {
+
+    private final ResponseEntityFactory responseEntityFactory = new ResponseEntityFactory(new SimpleMeterRegistry());
+
+    private BindingResult singleError;
+    private BindingResult multipleErrors;
+
+    @Setup
+    public void setUp() {
+        singleError = new BeanPropertyBindingResult(new AddTodoPayload(" "), "addTodoPayload");
+        singleError.rejectValue("description", "NotBlank", "must not be blank");
+
+        multipleErrors = new BeanPropertyBindingResult(new AddTodoPayload(" "), "addTodoPayload");
+        multipleErrors.rejectValue("description", "NotBlank", "must not be blank");
+        multipleErrors.rejectValue("description", "Size", "size must be between 1 and 255");
+        multipleErrors.rejectValue("description", "Pattern", "must match \"\\S.*\"");
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorPresenter> createBadRequestWithSingleError() {
+        return responseEntityFactory.createBadRequest(singleError);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorPresenter> createBadRequestWithMultipleErrors() {
+        return responseEntityFactory.createBadRequest(multipleErrors);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorPresenter> createBadRequestWithMessage() {
+        return responseEntityFactory.createBadRequest("Unknown status", "unknown");
+    }
+}
@@ -0,0 +1,94 @@
+package org.sudlik.todo.ui;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.sudlik.todo.ObjectId;
+import org.sudlik.todo.presenter.PresenterCollection;
+import org.sudlik.todo.presenter.TodoPresenter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding a page of todos and decoding a batch of added todos, the two bodies that grow with the list, in each
+ * negotiated encoding. The encoded sizes are printed once per trial next to the scores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TodoEncodingBenchmark {
+
+    private static final TypeReference<List<AddTodoPayload>> PAYLOADS = new TypeReference<>() {};
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    @Param({"json", "smile", "cbor"})
+    private String encoding;
+
+    private ObjectMapper objectMapper;
+    private PresenterCollection<TodoPresenter> todoList;
+    private byte[] encodedPayloads;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = createObjectMapper(encoding);
+
+        List<TodoPresenter> todoPresenters = new ArrayList<>(size);
+        List<AddTodoPayload> payloads = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            todoPresenters.add(new TodoPresenter(
+                    ObjectId.format(ObjectId.generate()),
+                    "todo description " + i,
+                    i % 2 == 0 ? "new" : "completed"));
+            payloads.add(new AddTodoPayload("todo description " + i));
+        }
+
+        todoList = new PresenterCollection<>(todoPresenters, ObjectId.format(ObjectId.generate()));
+        encodedPayloads = objectMapper.writeValueAsBytes(payloads);
+
+        System.out.printf(
+                "%n%s, %d todos: todo list %d bytes, added todos %d bytes%n",
+                encoding,
+                size,
+                objectMapper.writeValueAsBytes(todoList).length,
+                encodedPayloads.length);
+    }
+
+    @Benchmark
+    public byte[] encodeTodoList() throws IOException {
+        return objectMapper.writeValueAsBytes(todoList);
+    }
+
+    @Benchmark
+    public List<AddTodoPayload> decodeAddedTodos() throws IOException {
+        return objectMapper.readValue(encodedPayloads, PAYLOADS);
+    }
+
+    private static ObjectMapper createObjectMapper(String encoding) {
+        switch (encoding) {
+            case "json":
+                return Jackson2ObjectMapperBuilder.json().build();
+            case "smile":
+                return Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.cbor().build();
+            default:
+                throw new IllegalArgumentException("Unknown encoding " + encoding);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.sudlik.todo.ui;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+import org.sudlik.todo.ObjectId;
+import org.sudlik.todo.domain.TodoEntity;
+import org.sudlik.todo.presenter.PresenterCollection;
+import org.sudlik.todo.presenter.TodoPresenter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writing a listed page as JSON the way it was written before, by turning every todo into a presenter and serializing
+ * it, against writing it from cached fragments, each also gzipped as a compressed response would be.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TodoPageBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private TodoFragmentCache todoFragmentCache;
+    private List<TodoEntity> todos;
+    private String next;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        todoFragmentCache = new TodoFragmentCache(objectMapper, new SimpleMeterRegistry(), DataSize.ofMegabytes(64));
+        todos = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            todos.add(new TodoEntity(
+                    ObjectId.generate(),
+                    "todo description " + i,
+                    i % 2 == 0 ? TodoEntity.Status.NEW : TodoEntity.Status.COMPLETED));
+        }
+
+        next = ObjectId.format(todos.get(size - 1).getId());
+        todoFragmentCache.write(new TodoPage(todos, next), new ByteArrayOutputStream());
+    }
+
+    @Benchmark
+    public byte[] serializePresenters() throws IOException {
+        return objectMapper.writeValueAsBytes(createPresenterCollection());
+    }
+
+    @Benchmark
+    public byte[] writeFragments() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        todoFragmentCache.write(new TodoPage(todos, next), outputStream);
+
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializePresentersGzipped() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            objectMapper.writeValue(gzipOutputStream, createPresenterCollection());
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeFragmentsGzipped() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            todoFragmentCache.write(new TodoPage(todos, next), gzipOutputStream);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    private PresenterCollection<TodoPresenter> createPresenterCollection() {
+        return new PresenterCollection<>(
+                todos.stream().map(TodoController::createTodoPresenter).collect(Collectors.toList()),
+                next);
+    }
+}
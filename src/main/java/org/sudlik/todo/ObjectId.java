@@ -1,10 +1,98 @@
 package org.sudlik.todo;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * Time-ordered 128-bit ids laid out like UUID version 7: 48 bits of Unix milliseconds, a 12-bit sequence in
+ * {@code rand_a} and 62 random bits. Ids are kept as {@link UUID} (two longs, stored as {@code BINARY(16)}) and exposed
+ * as 32 lowercase hex characters. A thread takes its sequence from one of {@value STRIPES} stripes chosen by its id,
+ * each on a cache line of its own, so threads only contend when they share a stripe. A sequence starts at zero every
+ * millisecond and counts up within it, so ids created later by the same thread sort after its earlier ones even within
+ * a millisecond, and inserts land near the end of the primary key index. Ids of threads on different stripes within
+ * one millisecond sort by sequence and random bits, not by creation; and as an id is made before its todo is
+ * inserted, a todo may commit below the cursor of a keyset page read in between, which that paging then skips. When a
+ * stripe runs out of sequence within a millisecond, or the clock goes back, its timestamp runs ahead of the clock until
+ * it catches up. Random bits come from {@link ThreadLocalRandom}, which is contention-free but not unpredictable.
+ */
 public class ObjectId {
 
-    public static String generate() {
-        return UUID.randomUUID().toString().replace("-", "");
+    private static final int LENGTH = 32;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int STRIPES = 64;
+
+    /**
+     * Longs from the start of one stripe to the next: two cache lines, as some CPUs fetch lines in pairs.
+     */
+    private static final int STRIPE_LENGTH = 16;
+
+    /**
+     * Milliseconds and sequence of the last id of each stripe, shifted together so that running out of sequence
+     * carries into the milliseconds.
+     */
+    private static final AtomicLongArray LAST_TIMESTAMPS = new AtomicLongArray(STRIPES * STRIPE_LENGTH);
+
+    public static UUID generate() {
+        return generate(System.currentTimeMillis());
+    }
+
+    static UUID generate(long currentTimeMillis) {
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1)) * STRIPE_LENGTH;
+        long now = currentTimeMillis << SEQUENCE_BITS;
+        long last;
+        long timestamp;
+
+        do {
+            last = LAST_TIMESTAMPS.get(stripe);
+            timestamp = Math.max(now, last + 1);
+        } while (!LAST_TIMESTAMPS.compareAndSet(stripe, last, timestamp));
+
+        long mostSigBits = ((timestamp >>> SEQUENCE_BITS) << 16) | 0x7000L | (timestamp & SEQUENCE_MASK);
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    public static String format(UUID id) {
+        long mostSigBits = id.getMostSignificantBits();
+        long leastSigBits = id.getLeastSignificantBits();
+        byte[] hex = new byte[LENGTH];
+
+        for (int i = 15; i >= 0; i--) {
+            hex[i] = HEX_DIGITS[(int) (mostSigBits & 0xF)];
+            hex[i + 16] = HEX_DIGITS[(int) (leastSigBits & 0xF)];
+            mostSigBits >>>= 4;
+            leastSigBits >>>= 4;
+        }
+
+        return new String(hex, StandardCharsets.ISO_8859_1);
+    }
+
+    public static Optional<UUID> parse(String value) {
+        if (value == null || value.length() != LENGTH) {
+            return Optional.empty();
+        }
+
+        long mostSigBits = 0;
+        long leastSigBits = 0;
+
+        for (int i = 0; i < 16; i++) {
+            int high = Character.digit(value.charAt(i), 16);
+            int low = Character.digit(value.charAt(i + 16), 16);
+
+            if (high < 0 || low < 0) {
+                return Optional.empty();
+            }
+
+            mostSigBits = (mostSigBits << 4) | high;
+            leastSigBits = (leastSigBits << 4) | low;
+        }
+
+        return Optional.of(new UUID(mostSigBits, leastSigBits));
     }
 }
@@ -0,0 +1,161 @@
+package org.sudlik.todo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.event.ApplicationStartingEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.web.server.WebFilter;
+
+import javax.servlet.Filter;
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Logs where the time to start went once the application is ready: the time since the JVM started at the end of each
+ * startup phase, the beans that took longest to create, and whether classes came from a shared archive. The phases end
+ * with reaching {@code main}, the environment, the context, the bean definitions of the configuration classes and
+ * auto-configuration, the refresh that creates the beans, the web server, and the runners. The first request served is
+ * logged the same way, as the time a started instance actually becomes useful. Only active when the application is
+ * started from {@link Application#main}, and switched off with {@code todo.startup.report=false}.
+ *
+ * <p>Bean times include the beans they depend on, so nested beans are counted again in the beans that needed them.
+ */
+@Slf4j
+class StartupReport implements ApplicationListener<ApplicationEvent> {
+
+    private static final int SLOWEST_BEANS = 10;
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> beanStarts = new ConcurrentHashMap<>();
+    private final Map<String, Long> beanTimes = new ConcurrentHashMap<>();
+    private final AtomicBoolean served = new AtomicBoolean();
+    private volatile boolean enabled = true;
+    private volatile long readyMillis;
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        if (event instanceof ApplicationStartingEvent) {
+            phases.put("jvm", uptimeMillis());
+        } else if (event instanceof ApplicationEnvironmentPreparedEvent) {
+            enabled = ((ApplicationEnvironmentPreparedEvent) event).getEnvironment()
+                    .getProperty("todo.startup.report", Boolean.class, true);
+            phases.put("environment", uptimeMillis());
+        } else if (event instanceof ApplicationPreparedEvent) {
+            prepare(((ApplicationPreparedEvent) event).getApplicationContext());
+            phases.put("context", uptimeMillis());
+        } else if (event instanceof ContextRefreshedEvent) {
+            phases.putIfAbsent("refresh", uptimeMillis());
+        } else if (event instanceof WebServerInitializedEvent) {
+            phases.putIfAbsent("web server", uptimeMillis());
+        } else if (event instanceof ApplicationStartedEvent) {
+            phases.put("started", uptimeMillis());
+        } else if (event instanceof ApplicationReadyEvent) {
+            readyMillis = uptimeMillis();
+            phases.put("ready", readyMillis);
+            report();
+        }
+    }
+
+    private void prepare(ConfigurableApplicationContext context) {
+        context.addBeanFactoryPostProcessor(beanFactory -> phases.put("definitions", uptimeMillis()));
+        context.getBeanFactory().addBeanPostProcessor(new BeanTimer());
+
+        if (context instanceof ReactiveWebServerApplicationContext) {
+            context.getBeanFactory().registerSingleton("startupReportWebFilter", (WebFilter) (exchange, chain) ->
+                    chain.filter(exchange).doFinally(signal -> served()));
+        } else {
+            context.getBeanFactory().registerSingleton("startupReportFilter", (Filter) (request, response, chain) -> {
+                chain.doFilter(request, response);
+                served();
+            });
+        }
+    }
+
+    private void report() {
+        StringBuilder report = new StringBuilder("Started in ")
+                .append(readyMillis)
+                .append(" ms since the JVM started, ")
+                .append(ManagementFactory.getClassLoadingMXBean().getLoadedClassCount())
+                .append(" classes loaded, ")
+                .append(System.getProperty("java.vm.info", "").contains("sharing") ? "sharing" : "not sharing")
+                .append(" class data");
+        long previous = 0;
+
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            report.append(String.format(
+                    "%n  %-12s %6d ms  (+%d ms)",
+                    phase.getKey(),
+                    phase.getValue(),
+                    phase.getValue() - previous));
+            previous = phase.getValue();
+        }
+
+        report.append(String.format("%nSlowest beans, with their dependencies:"));
+
+        List<Map.Entry<String, Long>> slowest = beanTimes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(SLOWEST_BEANS)
+                .collect(Collectors.toList());
+
+        for (Map.Entry<String, Long> bean : slowest) {
+            report.append(String.format("%n  %6d ms  %s", bean.getValue(), bean.getKey()));
+        }
+
+        log.info(report.toString());
+    }
+
+    private void served() {
+        if (!served.get() && served.compareAndSet(false, true)) {
+            long servedMillis = uptimeMillis();
+
+            log.info(
+                    "Served the first request {} ms since the JVM started, {} ms after it was ready",
+                    servedMillis,
+                    servedMillis - readyMillis);
+        }
+    }
+
+    private static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    private class BeanTimer implements InstantiationAwareBeanPostProcessor {
+
+        @Override
+        public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+            beanStarts.put(beanName, System.nanoTime());
+
+            return null;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            Long start = beanStarts.remove(beanName);
+
+            if (start != null) {
+                beanTimes.put(beanName, (System.nanoTime() - start) / 1_000_000);
+            }
+
+            return bean;
+        }
+    }
+}
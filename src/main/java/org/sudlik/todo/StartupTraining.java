@@ -0,0 +1,79 @@
+package org.sudlik.todo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * A training run for the class data sharing archive of the {@code fast-startup} build: once ready, the application
+ * adds, lists, completes and deletes a todo through its own routes, so the classes a first request needs are recorded
+ * along with those of startup, and then exits.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "todo.startup.training", havingValue = "true")
+class StartupTraining implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final String TODOS = "/owners/startup-training/todos";
+
+    private final ObjectMapper objectMapper;
+
+    StartupTraining(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        URI todos = URI.create("http://localhost:"
+                + context.getEnvironment().getRequiredProperty("local.server.port")
+                + TODOS);
+        int exitCode = 0;
+
+        try {
+            train(HttpClient.newHttpClient(), todos);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            log.error("Startup training failed", e);
+            exitCode = 1;
+        }
+
+        System.exit(exitCode == 0 ? SpringApplication.exit(context) : exitCode);
+    }
+
+    private void train(HttpClient client, URI todos) throws IOException, InterruptedException {
+        String added = send(client, HttpRequest.newBuilder(todos)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"description\":\"startup training\"}")));
+        URI todo = URI.create(todos + "/" + objectMapper.readTree(added).get("id").asText());
+
+        send(client, HttpRequest.newBuilder(todos).header("Accept", "application/json").GET());
+        send(client, HttpRequest.newBuilder(todo)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"status\":\"completed\"}")));
+        send(client, HttpRequest.newBuilder(todo).header("Accept", "application/json").GET());
+        send(client, HttpRequest.newBuilder(todo).DELETE());
+    }
+
+    private static String send(HttpClient client, HttpRequest.Builder request)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(response.request().method() + " " + response.uri() + " answered "
+                    + response.statusCode() + ": " + response.body());
+        }
+
+        return response.body();
+    }
+}
@@ -0,0 +1,51 @@
+package org.sudlik.todo;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs Tomcat request processing, Spring MVC async work such as {@code GET /todos/export} and blocking reactive
+ * repository calls on a new virtual thread each, instead of on bounded pools of platform threads. A request blocked on
+ * JDBC or on a slow client then holds only its virtual thread, so the number of requests in flight is limited by
+ * Tomcat's {@code server.tomcat.max-connections} and the connection pool rather than by {@code max-threads}.
+ *
+ * <p>The build targets Java 11, so the executor is looked up reflectively and needs a JDK 21 runtime.
+ */
+@Configuration
+@ConditionalOnProperty(name = "todo.threads.virtual", havingValue = "true")
+class VirtualThreadConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(
+                    "Virtual threads need Java 21, running on " + System.getProperty("java.version"),
+                    e);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Virtual thread executor can not be created", e);
+        }
+    }
+
+    @Bean
+    TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Replaces the pool Spring Boot would otherwise create under this name for Spring MVC async requests.
+     */
+    @Bean("applicationTaskExecutor")
+    AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+}
@@ -0,0 +1,387 @@
+package org.sudlik.todo.domain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-through cache of todos by id and of keyset pages. Every write evicts the todos it touched and the pages of
+ * their owner that may list them: unfiltered pages and pages filtered by an affected status. A status change instead
+ * keeps its todo cached with the new status, as the response to it reads the todo back. The cached pages and todos of
+ * each owner are indexed, so a write or an erase reads only that owner's keys, however much of others is cached.
+ *
+ * <p>A load that overlaps a write it may have missed is not cached, so a page read before the write can not outlive
+ * it. Page loads check a generation of their owner, loads by id a generation of a stripe of ids that every write of
+ * the id advances, and a counter of erases, the only writes whose ids are not known. A write to one owner therefore
+ * never drops the concurrent loads of another. Generations and page indexes are kept for every owner seen since the
+ * start; an index only holds the keys of cached entries.
+ */
+class CachingTodoRepository extends ForwardingTodoRepository {
+
+    private static final int ID_STRIPES = 64;
+
+    private final TodoRepository delegate;
+    private final Cache<UUID, TodoEntity> todos;
+    private final Cache<PageKey, List<TodoEntity>> pages;
+    private final ConcurrentMap<String, Owner> owners = new ConcurrentHashMap<>();
+    private final AtomicLongArray idGenerations = new AtomicLongArray(ID_STRIPES);
+    private final AtomicLong erasures = new AtomicLong();
+
+    CachingTodoRepository(
+            TodoRepository delegate,
+            Caffeine<Object, Object> todos,
+            Caffeine<PageKey, List<TodoEntity>> pages) {
+        this.delegate = delegate;
+        this.todos = todos
+                .removalListener((UUID id, TodoEntity todo, RemovalCause cause) -> unindexTodo(id, todo, cause))
+                .build();
+        this.pages = pages
+                .removalListener((PageKey pageKey, List<TodoEntity> page, RemovalCause cause) -> unindexPage(pageKey, cause))
+                .build();
+    }
+
+    Cache<UUID, TodoEntity> todos() {
+        return todos;
+    }
+
+    Cache<PageKey, List<TodoEntity>> pages() {
+        return pages;
+    }
+
+    @Override
+    protected TodoRepository delegate() {
+        return delegate;
+    }
+
+    @Override
+    public Optional<TodoEntity> findById(UUID id) {
+        TodoEntity todoEntity = todos.getIfPresent(id);
+
+        if (todoEntity != null) {
+            return Optional.of(todoEntity);
+        }
+
+        int stripe = stripe(id);
+        long loadGeneration = idGenerations.get(stripe);
+        long loadErasures = erasures.get();
+        Optional<TodoEntity> todoEntityOptional = delegate.findById(id);
+
+        todoEntityOptional.ifPresent(loaded -> {
+            todos.put(id, loaded);
+            owner(loaded.getOwner()).todos.add(id);
+
+            if (idGenerations.get(stripe) != loadGeneration || erasures.get() != loadErasures) {
+                todos.invalidate(id);
+            }
+        });
+
+        return todoEntityOptional;
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return todos.getIfPresent(id) != null || delegate.existsById(id);
+    }
+
+    @Override
+    public List<TodoEntity> findPage(String owner, @Nullable TodoEntity.Status status, @Nullable UUID after, int limit) {
+        PageKey pageKey = new PageKey(owner, status, after, limit);
+        List<TodoEntity> page = pages.getIfPresent(pageKey);
+
+        if (page != null) {
+            return page;
+        }
+
+        Owner pageOwner = owner(owner);
+        long loadGeneration = pageOwner.generation.get();
+
+        page = List.copyOf(delegate.findPage(owner, status, after, limit));
+
+        // Indexed after it is cached and checked after it is indexed, so a write either finds it or drops it here.
+        pages.put(pageKey, page);
+        pageOwner.pages.add(pageKey);
+
+        for (TodoEntity todoEntity : page) {
+            todos.put(todoEntity.getId(), todoEntity);
+            pageOwner.todos.add(todoEntity.getId());
+        }
+
+        if (pageOwner.generation.get() != loadGeneration) {
+            pages.invalidate(pageKey);
+            page.forEach(todoEntity -> todos.invalidate(todoEntity.getId()));
+        }
+
+        return page;
+    }
+
+    @Override
+    public <S extends TodoEntity> S save(S entity) {
+        S saved = delegate.save(entity);
+
+        evict(saved);
+
+        return saved;
+    }
+
+    @Override
+    public <S extends TodoEntity> Iterable<S> saveAll(Iterable<S> entities) {
+        Iterable<S> saved = delegate.saveAll(entities);
+
+        saved.forEach(this::evict);
+
+        return saved;
+    }
+
+    @Override
+    public int updateStatus(String owner, UUID id, TodoEntity.Status expected, TodoEntity.Status status) {
+        long updateErasures = erasures.get();
+        int updated = delegate.updateStatus(owner, id, expected, status);
+
+        if (updated > 0) {
+            statusChanged(owner, id, updateErasures, expected, status);
+        }
+
+        return updated;
+    }
+
+    @Override
+    public boolean completeIfNew(String owner, UUID id) {
+        long completeErasures = erasures.get();
+        boolean completed = delegate.completeIfNew(owner, id);
+
+        if (completed) {
+            statusChanged(owner, id, completeErasures, TodoEntity.Status.NEW, TodoEntity.Status.COMPLETED);
+        }
+
+        return completed;
+    }
+
+    @Override
+    public Map<UUID, CompletionResult> completeAll(String owner, Collection<UUID> ids) {
+        Map<UUID, CompletionResult> results = delegate.completeAll(owner, ids);
+        List<UUID> completedIds = new ArrayList<>();
+
+        results.forEach((id, result) -> {
+            if (result.equals(CompletionResult.COMPLETED)) {
+                completedIds.add(id);
+            }
+        });
+
+        if (!completedIds.isEmpty()) {
+            owner(owner).generation.incrementAndGet();
+            completedIds.forEach(id -> idGenerations.incrementAndGet(stripe(id)));
+            todos.invalidateAll(completedIds);
+            evictPages(owner, TodoEntity.Status.NEW, TodoEntity.Status.COMPLETED);
+        }
+
+        return results;
+    }
+
+    /**
+     * Read first, as the pages to evict are those of the owner.
+     */
+    @Override
+    public void deleteById(UUID id) {
+        Optional<TodoEntity> deleted = findById(id);
+
+        delegate.deleteById(id);
+
+        deleted.ifPresent(this::evict);
+    }
+
+    @Override
+    public void delete(TodoEntity entity) {
+        delegate.delete(entity);
+
+        evict(entity);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends TodoEntity> entities) {
+        delegate.deleteAll(entities);
+
+        entities.forEach(this::evict);
+    }
+
+    @Override
+    public void deleteAll() {
+        delegate.deleteAll();
+
+        evictAll();
+    }
+
+    @Override
+    public int deleteInBulkByOwner(String owner) {
+        int deleted = delegate.deleteInBulkByOwner(owner);
+
+        if (deleted > 0) {
+            erased(owner, null);
+            evictPages(owner, TodoEntity.Status.values());
+        }
+
+        return deleted;
+    }
+
+    @Override
+    public int deleteInBulkByOwnerAndStatus(String owner, TodoEntity.Status status) {
+        int deleted = delegate.deleteInBulkByOwnerAndStatus(owner, status);
+
+        if (deleted > 0) {
+            erased(owner, status);
+            evictPages(owner, status);
+        }
+
+        return deleted;
+    }
+
+    private void evict(TodoEntity todoEntity) {
+        evict(todoEntity.getOwner(), todoEntity.getId(), todoEntity.getStatus());
+    }
+
+    /**
+     * Evicts the todo and the pages of its owner that may list it.
+     */
+    private void evict(String owner, UUID id, TodoEntity.Status ...statuses) {
+        owner(owner).generation.incrementAndGet();
+        idGenerations.incrementAndGet(stripe(id));
+        todos.invalidate(id);
+        evictPages(owner, statuses);
+    }
+
+    /**
+     * Evicts the pages of the owner that may list the todo, and turns its cached copy, if any, into the changed one: the
+     * conditional update left all but the status and the version as they were, so a completed todo is read back
+     * without a round trip. The copy is dropped instead if another write of its stripe or an erase came in since, or if
+     * it did not have the expected status; every write that may have made it stale drops it after this anyway.
+     */
+    private void statusChanged(
+            String owner,
+            UUID id,
+            long changeErasures,
+            TodoEntity.Status expected,
+            TodoEntity.Status status) {
+        owner(owner).generation.incrementAndGet();
+
+        int stripe = stripe(id);
+        long changeGeneration = idGenerations.incrementAndGet(stripe);
+
+        todos.asMap().computeIfPresent(id, (key, cached) ->
+                cached.getOwner().equals(owner)
+                        && cached.getStatus() == expected
+                        && idGenerations.get(stripe) == changeGeneration
+                        && erasures.get() == changeErasures
+                        ? new TodoEntity(id, owner, cached.getDescription(), status, cached.getVersion() + 1)
+                        : null);
+        evictPages(owner, expected, status);
+    }
+
+    /**
+     * Evicts the cached todos of the owner, optionally only those with the status.
+     */
+    private void erased(String owner, @Nullable TodoEntity.Status status) {
+        Owner erasedOwner = owner(owner);
+
+        erasedOwner.generation.incrementAndGet();
+        erasures.incrementAndGet();
+
+        for (UUID id : erasedOwner.todos) {
+            TodoEntity cached = todos.asMap().get(id);
+
+            if (cached != null && (status == null || cached.getStatus() == status)) {
+                todos.invalidate(id);
+            }
+        }
+    }
+
+    private void evictPages(String owner, TodoEntity.Status ...statuses) {
+        List<TodoEntity.Status> affected = List.of(statuses);
+
+        for (PageKey pageKey : owner(owner).pages) {
+            if (pageKey.status == null || affected.contains(pageKey.status)) {
+                pages.invalidate(pageKey);
+            }
+        }
+    }
+
+    private void evictAll() {
+        owners.values().forEach(cached -> cached.generation.incrementAndGet());
+        erasures.incrementAndGet();
+        todos.invalidateAll();
+        pages.invalidateAll();
+    }
+
+    /**
+     * Takes the key of a page that left the cache out of the index of its owner, and puts it back if the page has
+     * meanwhile been cached again; that load may have indexed it before it was taken out here.
+     */
+    private void unindexPage(PageKey pageKey, RemovalCause cause) {
+        if (cause == RemovalCause.REPLACED) {
+            return;
+        }
+
+        Set<PageKey> indexed = owner(pageKey.owner).pages;
+
+        indexed.remove(pageKey);
+
+        if (pages.asMap().containsKey(pageKey)) {
+            indexed.add(pageKey);
+        }
+    }
+
+    private void unindexTodo(UUID id, @Nullable TodoEntity todo, RemovalCause cause) {
+        if (todo == null || cause == RemovalCause.REPLACED) {
+            return;
+        }
+
+        Set<UUID> indexed = owner(todo.getOwner()).todos;
+
+        indexed.remove(id);
+
+        if (todos.asMap().containsKey(id)) {
+            indexed.add(id);
+        }
+    }
+
+    private Owner owner(String owner) {
+        return owners.computeIfAbsent(owner, key -> new Owner());
+    }
+
+    private static int stripe(UUID id) {
+        return (int) (id.getLeastSignificantBits() & (ID_STRIPES - 1));
+    }
+
+    private static class Owner {
+
+        final AtomicLong generation = new AtomicLong();
+        final Set<PageKey> pages = ConcurrentHashMap.newKeySet();
+        final Set<UUID> todos = ConcurrentHashMap.newKeySet();
+    }
+
+    @Value
+    static class PageKey {
+
+        String owner;
+
+        @Nullable
+        TodoEntity.Status status;
+
+        @Nullable
+        UUID after;
+
+        int limit;
+    }
+}
@@ -0,0 +1,174 @@
+package org.sudlik.todo.domain;
+
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Advances the {@link TodoListVersion} of the written owner and publishes to the {@link TodoChangeFeed} once a write
+ * has reached the delegate, including any cache it holds, so a reader that sees the new version or change also sees the
+ * new data.
+ */
+class ChangeTrackingTodoRepository extends ForwardingTodoRepository {
+
+    private final TodoRepository delegate;
+    private final TodoListVersion todoListVersion;
+    private final TodoChangeFeed todoChangeFeed;
+
+    ChangeTrackingTodoRepository(TodoRepository delegate, TodoListVersion todoListVersion, TodoChangeFeed todoChangeFeed) {
+        this.delegate = delegate;
+        this.todoListVersion = todoListVersion;
+        this.todoChangeFeed = todoChangeFeed;
+    }
+
+    @Override
+    protected TodoRepository delegate() {
+        return delegate;
+    }
+
+    @Override
+    public <S extends TodoEntity> S save(S entity) {
+        boolean created = entity.isNew();
+        S saved = delegate.save(entity);
+
+        todoListVersion.increment(saved.getOwner());
+
+        if (created) {
+            todoChangeFeed.created(saved);
+        }
+
+        return saved;
+    }
+
+    @Override
+    public <S extends TodoEntity> Iterable<S> saveAll(Iterable<S> entities) {
+        List<S> created = new ArrayList<>();
+        Set<String> owners = new HashSet<>();
+
+        entities.forEach(entity -> {
+            if (entity.isNew()) {
+                created.add(entity);
+            }
+
+            owners.add(entity.getOwner());
+        });
+
+        Iterable<S> saved = delegate.saveAll(entities);
+
+        owners.forEach(todoListVersion::increment);
+        created.forEach(todoChangeFeed::created);
+
+        return saved;
+    }
+
+    @Override
+    public int updateStatus(String owner, UUID id, TodoEntity.Status expected, TodoEntity.Status status) {
+        int updated = track(owner, delegate.updateStatus(owner, id, expected, status));
+
+        if (updated > 0 && status == TodoEntity.Status.COMPLETED) {
+            todoChangeFeed.completed(owner, id);
+        }
+
+        return updated;
+    }
+
+    @Override
+    public boolean completeIfNew(String owner, UUID id) {
+        boolean completed = delegate.completeIfNew(owner, id);
+
+        if (completed) {
+            todoListVersion.increment(owner);
+            todoChangeFeed.completed(owner, id);
+        }
+
+        return completed;
+    }
+
+    @Override
+    public Map<UUID, CompletionResult> completeAll(String owner, Collection<UUID> ids) {
+        Map<UUID, CompletionResult> results = delegate.completeAll(owner, ids);
+
+        if (results.containsValue(CompletionResult.COMPLETED)) {
+            todoListVersion.increment(owner);
+            results.forEach((id, result) -> {
+                if (result == CompletionResult.COMPLETED) {
+                    todoChangeFeed.completed(owner, id);
+                }
+            });
+        }
+
+        return results;
+    }
+
+    /**
+     * Read first, like the JPA repository does, as the change has to name the owner.
+     */
+    @Override
+    public void deleteById(UUID id) {
+        delete(delegate
+                .findById(id)
+                .orElseThrow(() -> new EmptyResultDataAccessException(String.format("No todo with id %s exists!", id), 1)));
+    }
+
+    @Override
+    public void delete(TodoEntity entity) {
+        delegate.delete(entity);
+
+        todoListVersion.increment(entity.getOwner());
+        todoChangeFeed.deleted(entity.getOwner(), entity.getId());
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends TodoEntity> entities) {
+        delegate.deleteAll(entities);
+
+        entities.forEach(entity -> {
+            todoListVersion.increment(entity.getOwner());
+            todoChangeFeed.deleted(entity.getOwner(), entity.getId());
+        });
+    }
+
+    @Override
+    public void deleteAll() {
+        delegate.deleteAll();
+
+        todoListVersion.incrementAll();
+        todoChangeFeed.erased(null, null);
+    }
+
+    @Override
+    public int deleteInBulkByOwner(String owner) {
+        int deleted = track(owner, delegate.deleteInBulkByOwner(owner));
+
+        if (deleted > 0) {
+            todoChangeFeed.erased(owner, null);
+        }
+
+        return deleted;
+    }
+
+    @Override
+    public int deleteInBulkByOwnerAndStatus(String owner, TodoEntity.Status status) {
+        int deleted = track(owner, delegate.deleteInBulkByOwnerAndStatus(owner, status));
+
+        if (deleted > 0) {
+            todoChangeFeed.erased(owner, status);
+        }
+
+        return deleted;
+    }
+
+    private int track(String owner, int affected) {
+        if (affected > 0) {
+            todoListVersion.increment(owner);
+        }
+
+        return affected;
+    }
+}
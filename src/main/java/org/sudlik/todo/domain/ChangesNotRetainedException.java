@@ -0,0 +1,11 @@
+package org.sudlik.todo.domain;
+
+public class ChangesNotRetainedException extends RuntimeException {
+    public final long after;
+
+    public ChangesNotRetainedException(long after) {
+        super("Changes after " + after + " are no longer retained");
+
+        this.after = after;
+    }
+}
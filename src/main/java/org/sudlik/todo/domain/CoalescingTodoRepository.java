@@ -0,0 +1,211 @@
+package org.sudlik.todo.domain;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Saves new todos of concurrent requests in groups, one transaction and one batched insert each, instead of a
+ * transaction and commit per todo. A save is put on a bounded queue and returns once a single writer has committed the
+ * group it was taken in. The writer takes everything queued while the previous group was committing, up to
+ * {@code batchSize}, and waits up to {@code linger} for more when a group is not full. A full queue blocks further
+ * saves until the writer catches up.
+ *
+ * <p>A failing todo fails the whole transaction, so a group that fails is saved again one todo at a time, and only the
+ * saves that fail on their own fail. Everything else, including saves of todos that already exist, goes straight to
+ * the delegate.
+ */
+@Slf4j
+class CoalescingTodoRepository extends ForwardingTodoRepository implements Closeable {
+
+    private static final PendingSave CLOSE = new PendingSave(null);
+
+    private final TodoRepository delegate;
+    private final BlockingQueue<PendingSave> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final DistributionSummary groupSizes;
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    CoalescingTodoRepository(
+            TodoRepository delegate,
+            int queueCapacity,
+            int batchSize,
+            Duration linger,
+            MeterRegistry meterRegistry) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive, was " + batchSize);
+        }
+
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.groupSizes = DistributionSummary.builder("todo.writes.group.size")
+                .description("Todos saved per group commit")
+                .register(meterRegistry);
+
+        Gauge.builder("todo.writes.queued", queue, BlockingQueue::size).register(meterRegistry);
+
+        writer = new Thread(this::write, "todo-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    protected TodoRepository delegate() {
+        return delegate;
+    }
+
+    @Override
+    public <S extends TodoEntity> S save(S entity) {
+        if (!entity.isNew()) {
+            return delegate.save(entity);
+        }
+
+        PendingSave pending = new PendingSave(entity);
+
+        if (closed) {
+            throw new IllegalStateException("Todo writer is closed");
+        }
+
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while queueing a todo", e);
+        }
+
+        // Closed since the check above, the writer may be gone already; whoever takes the save off the queue ends it.
+        if (closed && queue.remove(pending)) {
+            throw new IllegalStateException("Todo writer is closed");
+        }
+
+        try {
+            pending.saved.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+
+        return entity;
+    }
+
+    /**
+     * Commits what is queued and stops the writer. Saves queued after that fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        try {
+            if (writer.isAlive()) {
+                queue.put(CLOSE);
+            }
+
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<PendingSave> late = new ArrayList<>();
+
+        queue.drainTo(late);
+        fail(late, new IllegalStateException("Todo writer is closed"));
+    }
+
+    private void write() {
+        List<PendingSave> group = new ArrayList<>(batchSize);
+        boolean closing = false;
+
+        try {
+            while (!closing) {
+                group.add(queue.take());
+                queue.drainTo(group, batchSize - group.size());
+
+                long deadline = System.nanoTime() + lingerNanos;
+
+                while (group.size() < batchSize && !group.contains(CLOSE)) {
+                    PendingSave next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+                    if (next == null) {
+                        break;
+                    }
+
+                    group.add(next);
+                    queue.drainTo(group, batchSize - group.size());
+                }
+
+                closing = group.remove(CLOSE);
+
+                if (!group.isEmpty()) {
+                    commit(group);
+                }
+
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            log.error("Todo writer interrupted", e);
+        } finally {
+            closed = true;
+            queue.drainTo(group);
+            fail(group, new IllegalStateException("Todo writer stopped"));
+        }
+    }
+
+    private void commit(List<PendingSave> group) {
+        groupSizes.record(group.size());
+
+        try {
+            delegate.saveAll(group.stream().map(pending -> pending.entity).collect(Collectors.toList()));
+            group.forEach(pending -> pending.saved.complete(null));
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).saved.completeExceptionally(e);
+
+                return;
+            }
+
+            for (PendingSave pending : group) {
+                try {
+                    delegate.save(pending.entity);
+                    pending.saved.complete(null);
+                } catch (RuntimeException saveException) {
+                    pending.saved.completeExceptionally(saveException);
+                }
+            }
+        }
+    }
+
+    private static void fail(List<PendingSave> pendingSaves, RuntimeException e) {
+        pendingSaves.forEach(pending -> pending.saved.completeExceptionally(e));
+    }
+
+    private static class PendingSave {
+
+        final TodoEntity entity;
+        final CompletableFuture<Void> saved = new CompletableFuture<>();
+
+        PendingSave(TodoEntity entity) {
+            this.entity = entity;
+        }
+    }
+}
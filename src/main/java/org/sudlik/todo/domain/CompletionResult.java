@@ -0,0 +1,18 @@
+package org.sudlik.todo.domain;
+
+public enum CompletionResult {
+    COMPLETED("completed"),
+    NOT_FOUND("not_found"),
+    NOT_NEW("not_new");
+
+    private String value;
+
+    CompletionResult(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,349 @@
+package org.sudlik.todo.domain;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Makes the in-memory engine durable with a {@link WriteAheadLog}. A write is appended to the log and then applied to
+ * the store the way replay applies it, under one short lock, so the log has writes in the order they were applied and
+ * a write the log refuses (closed, failed, or a record too large) never reaches the store. The write returns once the
+ * flusher has forced it to disk together with whatever else was appended meanwhile. Once the log has grown by enough
+ * segments a snapshot of the store is written in the background and the segments it covers are deleted.
+ *
+ * <p>Reads go straight to the store, so they see a write as soon as it is applied, before it is on disk: a crash in
+ * between loses a write that others may already have read, though never one whose caller was answered. A write whose
+ * record was appended but could not be forced stays applied until the next restart, and its caller gets the error.
+ */
+@Slf4j
+class DurableTodoRepository extends ForwardingTodoRepository implements Closeable {
+
+    private static final long NOTHING_WRITTEN = 0;
+
+    private final InMemoryTodoRepository delegate;
+    private final WriteAheadLog.Handler store;
+    private final WriteAheadLog writeAheadLog;
+    private final int snapshotAfterSegments;
+    private final Object writes = new Object();
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private final ExecutorService snapshots = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "todo-log-snapshot");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    private DurableTodoRepository(
+            InMemoryTodoRepository delegate,
+            WriteAheadLog writeAheadLog,
+            int snapshotAfterSegments) {
+        this.delegate = delegate;
+        this.store = new Replay(delegate);
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotAfterSegments = snapshotAfterSegments;
+    }
+
+    /**
+     * Rebuilds the store from the log in {@code directory} and keeps logging to it.
+     */
+    static DurableTodoRepository open(
+            Path directory,
+            int segmentSize,
+            Duration commitDelay,
+            int snapshotAfterSegments) throws IOException {
+        InMemoryTodoRepository store = new InMemoryTodoRepository();
+        WriteAheadLog writeAheadLog = WriteAheadLog.open(directory, segmentSize, commitDelay, new Replay(store));
+
+        return new DurableTodoRepository(store, writeAheadLog, snapshotAfterSegments);
+    }
+
+    @Override
+    protected TodoRepository delegate() {
+        return delegate;
+    }
+
+    @Override
+    public <S extends TodoEntity> S save(S entity) {
+        commit(appendSave(entity));
+        entity.markPersisted();
+
+        return entity;
+    }
+
+    @Override
+    public <S extends TodoEntity> Iterable<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        long position = NOTHING_WRITTEN;
+
+        for (S entity : entities) {
+            position = appendSave(entity);
+            entity.markPersisted();
+            saved.add(entity);
+        }
+
+        commit(position);
+
+        return saved;
+    }
+
+    @Override
+    public int updateStatus(String owner, UUID id, TodoEntity.Status expected, TodoEntity.Status status) {
+        long position = appendStatus(owner, id, expected, status);
+
+        commit(position);
+
+        return position == NOTHING_WRITTEN ? 0 : 1;
+    }
+
+    @Override
+    public boolean completeIfNew(String owner, UUID id) {
+        return updateStatus(owner, id, TodoEntity.Status.NEW, TodoEntity.Status.COMPLETED) == 1;
+    }
+
+    @Override
+    public Map<UUID, CompletionResult> completeAll(String owner, Collection<UUID> ids) {
+        Map<UUID, CompletionResult> results = new LinkedHashMap<>();
+        long position = NOTHING_WRITTEN;
+
+        for (UUID id : ids) {
+            if (results.containsKey(id)) {
+                continue;
+            }
+
+            long written = appendStatus(owner, id, TodoEntity.Status.NEW, TodoEntity.Status.COMPLETED);
+
+            if (written != NOTHING_WRITTEN) {
+                position = written;
+                results.put(id, CompletionResult.COMPLETED);
+            } else {
+                results.put(id, delegate.findById(id).filter(todo -> todo.getOwner().equals(owner)).isPresent()
+                        ? CompletionResult.NOT_NEW
+                        : CompletionResult.NOT_FOUND);
+            }
+        }
+
+        commit(position);
+
+        return results;
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        long position = appendDelete(id);
+
+        if (position == NOTHING_WRITTEN) {
+            throw new EmptyResultDataAccessException(String.format("No todo with id %s exists!", id), 1);
+        }
+
+        commit(position);
+    }
+
+    @Override
+    public void delete(TodoEntity entity) {
+        commit(appendDelete(entity.getId()));
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends TodoEntity> entities) {
+        long position = NOTHING_WRITTEN;
+
+        for (TodoEntity entity : entities) {
+            position = Math.max(position, appendDelete(entity.getId()));
+        }
+
+        commit(position);
+    }
+
+    @Override
+    public void deleteAll() {
+        long position;
+
+        synchronized (writes) {
+            position = writeAheadLog.clear();
+            store.clear();
+        }
+
+        commit(position);
+    }
+
+    /**
+     * Logged as one record: the owner of a todo never changes, so replaying it over a snapshot taken while the
+     * owner's todos were being written removes exactly the todos the erase did.
+     */
+    @Override
+    public int deleteInBulkByOwner(String owner) {
+        int deleted;
+        long position;
+
+        synchronized (writes) {
+            if (delegate.countByOwner(owner) == 0) {
+                return 0;
+            }
+
+            position = writeAheadLog.clear(owner);
+            deleted = delegate.deleteInBulkByOwner(owner);
+        }
+
+        commit(position);
+
+        return deleted;
+    }
+
+    /**
+     * Logged as a delete of every removed todo: a record that depends on the status of todos could not be replayed
+     * over a snapshot taken while todos were being completed.
+     */
+    @Override
+    public int deleteInBulkByOwnerAndStatus(String owner, TodoEntity.Status status) {
+        int deleted = 0;
+        long position = NOTHING_WRITTEN;
+
+        synchronized (writes) {
+            for (TodoEntity todo : delegate.findByOwnerAndStatus(owner, status)) {
+                position = writeAheadLog.delete(todo.getId());
+                store.delete(todo.getId());
+                deleted++;
+            }
+        }
+
+        commit(position);
+
+        return deleted;
+    }
+
+    /**
+     * Waits for a snapshot in progress, then stops logging; everything written so far is on disk afterwards.
+     */
+    @Override
+    public void close() {
+        snapshots.shutdown();
+
+        try {
+            snapshots.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        writeAheadLog.close();
+    }
+
+    private long appendSave(TodoEntity entity) {
+        synchronized (writes) {
+            TodoEntity saved = delegate.asSaved(entity);
+            long position = writeAheadLog.put(saved);
+
+            store.put(saved);
+
+            return position;
+        }
+    }
+
+    private long appendStatus(String owner, UUID id, TodoEntity.Status expected, TodoEntity.Status status) {
+        synchronized (writes) {
+            TodoEntity current = delegate.findById(id).orElse(null);
+
+            if (current == null || !current.getOwner().equals(owner) || current.getStatus() != expected) {
+                return NOTHING_WRITTEN;
+            }
+
+            long version = current.getVersion() + 1;
+            long position = writeAheadLog.status(id, status, version);
+
+            store.status(id, status, version);
+
+            return position;
+        }
+    }
+
+    private long appendDelete(UUID id) {
+        synchronized (writes) {
+            if (!delegate.existsById(id)) {
+                return NOTHING_WRITTEN;
+            }
+
+            long position = writeAheadLog.delete(id);
+
+            store.delete(id);
+
+            return position;
+        }
+    }
+
+    private void commit(long position) {
+        if (position == NOTHING_WRITTEN) {
+            return;
+        }
+
+        writeAheadLog.sync(position);
+
+        if (writeAheadLog.segmentsSinceSnapshot() >= snapshotAfterSegments && snapshotting.compareAndSet(false, true)) {
+            snapshots.execute(this::snapshot);
+        }
+    }
+
+    private void snapshot() {
+        try {
+            int segment;
+
+            synchronized (writes) {
+                segment = writeAheadLog.roll();
+            }
+
+            writeAheadLog.snapshot(segment, delegate::forEachTodo);
+        } catch (IOException | RuntimeException e) {
+            log.error("Snapshot of the todo log failed", e);
+        } finally {
+            snapshotting.set(false);
+        }
+    }
+
+    private static class Replay implements WriteAheadLog.Handler {
+
+        private final InMemoryTodoRepository store;
+
+        Replay(InMemoryTodoRepository store) {
+            this.store = store;
+        }
+
+        @Override
+        public void put(TodoEntity todo) {
+            store.restore(todo);
+        }
+
+        @Override
+        public void status(UUID id, TodoEntity.Status status, long version) {
+            store.findById(id).ifPresent(todo -> {
+                store.restore(new TodoEntity(id, todo.getOwner(), todo.getDescription(), status, version));
+            });
+        }
+
+        @Override
+        public void delete(UUID id) {
+            store.findById(id).ifPresent(store::delete);
+        }
+
+        @Override
+        public void clear() {
+            store.deleteAll();
+        }
+
+        @Override
+        public void clear(String owner) {
+            store.deleteInBulkByOwner(owner);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.sudlik.todo.domain;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Base for decorators of {@link TodoRepository}: every method, including the default ones, goes to the delegate unless
+ * overridden.
+ */
+abstract class ForwardingTodoRepository implements TodoRepository {
+
+    protected abstract TodoRepository delegate();
+
+    @Override
+    public <S extends TodoEntity> S save(S entity) {
+        return delegate().save(entity);
+    }
+
+    @Override
+    public <S extends TodoEntity> Iterable<S> saveAll(Iterable<S> entities) {
+        return delegate().saveAll(entities);
+    }
+
+    @Override
+    public Optional<TodoEntity> findById(UUID id) {
+        return delegate().findById(id);
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return delegate().existsById(id);
+    }
+
+    @Override
+    public Iterable<TodoEntity> findAll() {
+        return delegate().findAll();
+    }
+
+    @Override
+    public Iterable<TodoEntity> findAllById(Iterable<UUID> ids) {
+        return delegate().findAllById(ids);
+    }
+
+    @Override
+    public long count() {
+        return delegate().count();
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        delegate().deleteById(id);
+    }
+
+    @Override
+    public void delete(TodoEntity entity) {
+        delegate().delete(entity);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends TodoEntity> entities) {
+        delegate().deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAll() {
+        delegate().deleteAll();
+    }
+
+    @Override
+    public Collection<TodoEntity> findByOwnerAndStatus(String owner, TodoEntity.Status status) {
+        return delegate().findByOwnerAndStatus(owner, status);
+    }
+
+    @Override
+    public long countByStatus(TodoEntity.Status status) {
+        return delegate().countByStatus(status);
+    }
+
+    @Override
+    public long countByOwner(String owner) {
+        return delegate().countByOwner(owner);
+    }
+
+    @Override
+    public long countByOwnerAndStatus(String owner, TodoEntity.Status status) {
+        return delegate().countByOwnerAndStatus(owner, status);
+    }
+
+    @Override
+    public List<TodoEntity> findByOwnerOrderByIdAsc(String owner, Pageable pageable) {
+        return delegate().findByOwnerOrderByIdAsc(owner, pageable);
+    }
+
+    @Override
+    public List<TodoEntity> findByOwnerAndIdGreaterThanOrderByIdAsc(String owner, UUID after, Pageable pageable) {
+        return delegate().findByOwnerAndIdGreaterThanOrderByIdAsc(owner, after, pageable);
+    }
+
+    @Override
+    public List<TodoEntity> findByOwnerAndStatusOrderByIdAsc(String owner, TodoEntity.Status status, Pageable pageable) {
+        return delegate().findByOwnerAndStatusOrderByIdAsc(owner, status, pageable);
+    }
+
+    @Override
+    public List<TodoEntity> findByOwnerAndStatusAndIdGreaterThanOrderByIdAsc(
+            String owner,
+            TodoEntity.Status status,
+            UUID after,
+            Pageable pageable) {
+        return delegate().findByOwnerAndStatusAndIdGreaterThanOrderByIdAsc(owner, status, after, pageable);
+    }
+
+    @Override
+    public int updateStatus(String owner, UUID id, TodoEntity.Status expected, TodoEntity.Status status) {
+        return delegate().updateStatus(owner, id, expected, status);
+    }
+
+    @Override
+    public int deleteInBulkByOwner(String owner) {
+        return delegate().deleteInBulkByOwner(owner);
+    }
+
+    @Override
+    public int deleteInBulkByOwnerAndStatus(String owner, TodoEntity.Status status) {
+        return delegate().deleteInBulkByOwnerAndStatus(owner, status);
+    }
+
+    @Override
+    public boolean completeIfNew(String owner, UUID id) {
+        return delegate().completeIfNew(owner, id);
+    }
+
+    @Override
+    public List<TodoEntity> findPage(String owner, @Nullable TodoEntity.Status status, @Nullable UUID after, int limit) {
+        return delegate().findPage(owner, status, after, limit);
+    }
+
+    @Override
+    public void forEachTodo(Consumer<? super TodoEntity> action) {
+        delegate().forEachTodo(action);
+    }
+
+    @Override
+    public void forEachTodo(String owner, Consumer<? super TodoEntity> action) {
+        delegate().forEachTodo(owner, action);
+    }
+
+    @Override
+    public Map<UUID, CompletionResult> completeAll(String owner, Collection<UUID> ids) {
+        return delegate().completeAll(owner, ids);
+    }
+}
@@ -0,0 +1,419 @@
+package org.sudlik.todo.domain;
+
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lock-free engine keeping todos in a skip list ordered like the {@code BINARY(16)} primary key, partitioned by owner:
+ * each owner has a set of ids, a set per status and counters of its own, so listing, counting and erasing a list reads
+ * only that owner's todos however many others are stored. Stored entities are never modified: every write replaces the
+ * stored instance, and a status change is a compare-and-set on it, so todos handed out are snapshots that callers must
+ * not modify either.
+ *
+ * <p>An id is added to the indexes of a partition after the todo is stored with that owner and status, and removed
+ * from them only if the stored todo no longer has that owner or status, so an index never misses a todo for longer
+ * than a write takes. A status change leaves the owner's ids and count alone and only moves the id between the status
+ * indexes, so unfiltered listings and counts never miss a todo being completed. An id may briefly be under its old
+ * status as well; every index read is checked against the stored todo. A partition stays once created, empty or not.
+ */
+class InMemoryTodoRepository implements TodoRepository {
+
+    static final Comparator<UUID> ID_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private static final Partition EMPTY = new Partition();
+
+    private final ConcurrentNavigableMap<UUID, TodoEntity> todos = new ConcurrentSkipListMap<>(ID_ORDER);
+    private final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final Map<TodoEntity.Status, AtomicLong> countsByStatus = new EnumMap<>(TodoEntity.Status.class);
+    private final AtomicLong count = new AtomicLong();
+
+    InMemoryTodoRepository() {
+        for (TodoEntity.Status status : TodoEntity.Status.values()) {
+            countsByStatus.put(status, new AtomicLong());
+        }
+    }
+
+    @Override
+    public <S extends TodoEntity> S save(S entity) {
+        put(entity, false);
+        entity.markPersisted();
+
+        return entity;
+    }
+
+    /**
+     * Stores the todo as it is, version included, where {@link #save} would advance the version of an existing one.
+     */
+    void restore(TodoEntity todo) {
+        put(todo, true);
+    }
+
+    /**
+     * The todo as {@link #save} would store it now, without storing it.
+     */
+    TodoEntity asSaved(TodoEntity entity) {
+        return versioned(entity, todos.get(entity.getId()), false);
+    }
+
+    @Override
+    public <S extends TodoEntity> Iterable<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+
+        return saved;
+    }
+
+    @Override
+    public Optional<TodoEntity> findById(UUID id) {
+        return Optional.ofNullable(todos.get(id));
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return todos.containsKey(id);
+    }
+
+    @Override
+    public Iterable<TodoEntity> findAll() {
+        return new ArrayList<>(todos.values());
+    }
+
+    @Override
+    public Iterable<TodoEntity> findAllById(Iterable<UUID> ids) {
+        List<TodoEntity> found = new ArrayList<>();
+
+        for (UUID id : ids) {
+            findById(id).ifPresent(found::add);
+        }
+
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return count.get();
+    }
+
+    @Override
+    public long countByStatus(TodoEntity.Status status) {
+        return countsByStatus.get(status).get();
+    }
+
+    @Override
+    public long countByOwner(String owner) {
+        return partition(owner).count.get();
+    }
+
+    @Override
+    public long countByOwnerAndStatus(String owner, TodoEntity.Status status) {
+        return partition(owner).countsByStatus.get(status).get();
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        if (!remove(id)) {
+            throw new EmptyResultDataAccessException(String.format("No todo with id %s exists!", id), 1);
+        }
+    }
+
+    @Override
+    public void delete(TodoEntity entity) {
+        remove(entity.getId());
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends TodoEntity> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        for (UUID id : todos.keySet()) {
+            remove(id);
+        }
+    }
+
+    @Override
+    public int deleteInBulkByOwner(String owner) {
+        return removeAll(partition(owner).ids, owner, null);
+    }
+
+    @Override
+    public int deleteInBulkByOwnerAndStatus(String owner, TodoEntity.Status status) {
+        return removeAll(partition(owner).idsByStatus.get(status), owner, status);
+    }
+
+    @Override
+    public Collection<TodoEntity> findByOwnerAndStatus(String owner, TodoEntity.Status status) {
+        return stored(partition(owner).idsByStatus.get(status), owner, status).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<TodoEntity> findByOwnerOrderByIdAsc(String owner, Pageable pageable) {
+        return page(stored(partition(owner).ids, owner, null), pageable);
+    }
+
+    @Override
+    public List<TodoEntity> findByOwnerAndIdGreaterThanOrderByIdAsc(String owner, UUID after, Pageable pageable) {
+        return page(stored(partition(owner).ids.tailSet(after, false), owner, null), pageable);
+    }
+
+    @Override
+    public List<TodoEntity> findByOwnerAndStatusOrderByIdAsc(String owner, TodoEntity.Status status, Pageable pageable) {
+        return page(stored(partition(owner).idsByStatus.get(status), owner, status), pageable);
+    }
+
+    @Override
+    public List<TodoEntity> findByOwnerAndStatusAndIdGreaterThanOrderByIdAsc(
+            String owner,
+            TodoEntity.Status status,
+            UUID after,
+            Pageable pageable) {
+        return page(stored(partition(owner).idsByStatus.get(status).tailSet(after, false), owner, status), pageable);
+    }
+
+    /**
+     * Compare-and-set on the stored todo: succeeds only if it still belongs to the owner and has the {@code expected}
+     * status when replaced.
+     */
+    @Override
+    public int updateStatus(String owner, UUID id, TodoEntity.Status expected, TodoEntity.Status status) {
+        while (true) {
+            TodoEntity current = todos.get(id);
+
+            if (current == null || !current.getOwner().equals(owner) || current.getStatus() != expected) {
+                return 0;
+            }
+
+            TodoEntity updated = new TodoEntity(id, owner, current.getDescription(), status, current.getVersion() + 1);
+
+            if (todos.replace(id, current, updated)) {
+                if (expected != status) {
+                    moved(current, updated);
+                }
+
+                return 1;
+            }
+        }
+    }
+
+    @Override
+    public void forEachTodo(Consumer<? super TodoEntity> action) {
+        todos.values().forEach(action);
+    }
+
+    @Override
+    public void forEachTodo(String owner, Consumer<? super TodoEntity> action) {
+        stored(partition(owner).ids, owner, null).forEach(action);
+    }
+
+    @Override
+    public Map<UUID, CompletionResult> completeAll(String owner, Collection<UUID> ids) {
+        Map<UUID, CompletionResult> results = new LinkedHashMap<>();
+
+        for (UUID id : ids) {
+            results.computeIfAbsent(id, key -> complete(owner, key));
+        }
+
+        return results;
+    }
+
+    private CompletionResult complete(String owner, UUID id) {
+        if (completeIfNew(owner, id)) {
+            return CompletionResult.COMPLETED;
+        }
+
+        TodoEntity todo = todos.get(id);
+
+        return todo != null && todo.getOwner().equals(owner) ? CompletionResult.NOT_NEW : CompletionResult.NOT_FOUND;
+    }
+
+    private Partition partition(String owner) {
+        return partitions.getOrDefault(owner, EMPTY);
+    }
+
+    private Partition createdPartition(String owner) {
+        return partitions.computeIfAbsent(owner, key -> new Partition());
+    }
+
+    private void put(TodoEntity entity, boolean keepVersion) {
+        UUID id = entity.getId();
+        TodoEntity previous;
+        TodoEntity stored;
+
+        do {
+            previous = todos.get(id);
+            stored = versioned(entity, previous, keepVersion);
+        } while (previous == null ? todos.putIfAbsent(id, stored) != null : !todos.replace(id, previous, stored));
+
+        if (previous == null) {
+            added(stored);
+        } else if (!previous.getOwner().equals(stored.getOwner()) || previous.getStatus() != stored.getStatus()) {
+            moved(previous, stored);
+        }
+    }
+
+    private static TodoEntity versioned(TodoEntity entity, @Nullable TodoEntity previous, boolean keepVersion) {
+        return new TodoEntity(
+                entity.getId(),
+                entity.getOwner(),
+                entity.getDescription(),
+                entity.getStatus(),
+                previous == null || keepVersion ? entity.getVersion() : previous.getVersion() + 1);
+    }
+
+    private boolean remove(UUID id) {
+        TodoEntity removed = todos.remove(id);
+
+        if (removed == null) {
+            return false;
+        }
+
+        removed(removed);
+
+        return true;
+    }
+
+    /**
+     * Removes the todos of the owner listed by the index, optionally only those still with the given status.
+     */
+    private int removeAll(Iterable<UUID> ids, String owner, @Nullable TodoEntity.Status status) {
+        int deleted = 0;
+
+        for (UUID id : ids) {
+            TodoEntity todo = todos.get(id);
+
+            if (todo != null
+                    && todo.getOwner().equals(owner)
+                    && (status == null || todo.getStatus() == status)
+                    && todos.remove(id, todo)) {
+                removed(todo);
+                deleted++;
+            }
+        }
+
+        return deleted;
+    }
+
+    private void added(TodoEntity todo) {
+        Partition partition = createdPartition(todo.getOwner());
+
+        partition.ids.add(todo.getId());
+        partition.count.incrementAndGet();
+        count.incrementAndGet();
+        addedStatus(partition, todo);
+    }
+
+    private void removed(TodoEntity todo) {
+        // Created here as well: a delete may overtake the write that stored the todo before it got to the partition.
+        Partition partition = createdPartition(todo.getOwner());
+
+        removedStatus(partition, todo);
+        partition.count.decrementAndGet();
+        count.decrementAndGet();
+        unindex(partition.ids, todo, current -> current.getOwner().equals(todo.getOwner()));
+    }
+
+    private void moved(TodoEntity from, TodoEntity to) {
+        if (!from.getOwner().equals(to.getOwner())) {
+            added(to);
+            removed(from);
+
+            return;
+        }
+
+        Partition partition = createdPartition(to.getOwner());
+
+        addedStatus(partition, to);
+        removedStatus(partition, from);
+    }
+
+    private void addedStatus(Partition partition, TodoEntity todo) {
+        partition.idsByStatus.get(todo.getStatus()).add(todo.getId());
+        partition.countsByStatus.get(todo.getStatus()).incrementAndGet();
+        countsByStatus.get(todo.getStatus()).incrementAndGet();
+    }
+
+    private void removedStatus(Partition partition, TodoEntity todo) {
+        partition.countsByStatus.get(todo.getStatus()).decrementAndGet();
+        countsByStatus.get(todo.getStatus()).decrementAndGet();
+        unindex(
+                partition.idsByStatus.get(todo.getStatus()),
+                todo,
+                current -> current.getOwner().equals(todo.getOwner()) && current.getStatus() == todo.getStatus());
+    }
+
+    /**
+     * Removes the id from the index, then puts it back if a concurrent write has meanwhile stored the todo the way the
+     * index holds it again; that writer may have added the id before it was removed here.
+     */
+    private void unindex(NavigableSet<UUID> ids, TodoEntity todo, Predicate<TodoEntity> indexed) {
+        UUID id = todo.getId();
+
+        ids.remove(id);
+
+        TodoEntity current = todos.get(id);
+
+        if (current != null && indexed.test(current)) {
+            ids.add(id);
+        }
+    }
+
+    private Stream<TodoEntity> stored(Iterable<UUID> ids, String owner, @Nullable TodoEntity.Status status) {
+        return StreamSupport.stream(ids.spliterator(), false)
+                .map(todos::get)
+                .filter(todo -> todo != null
+                        && todo.getOwner().equals(owner)
+                        && (status == null || todo.getStatus() == status));
+    }
+
+    private static List<TodoEntity> page(Stream<TodoEntity> todos, Pageable pageable) {
+        return todos
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+    }
+
+    private static class Partition {
+
+        final NavigableSet<UUID> ids = new ConcurrentSkipListSet<>(ID_ORDER);
+        final Map<TodoEntity.Status, NavigableSet<UUID>> idsByStatus = new EnumMap<>(TodoEntity.Status.class);
+        final Map<TodoEntity.Status, AtomicLong> countsByStatus = new EnumMap<>(TodoEntity.Status.class);
+        final AtomicLong count = new AtomicLong();
+
+        Partition() {
+            for (TodoEntity.Status status : TodoEntity.Status.values()) {
+                idsByStatus.put(status, new ConcurrentSkipListSet<>(ID_ORDER));
+                countsByStatus.put(status, new AtomicLong());
+            }
+        }
+    }
+}
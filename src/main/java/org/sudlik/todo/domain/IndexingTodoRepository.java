@@ -0,0 +1,133 @@
+package org.sudlik.todo.domain;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the {@link TodoSearchIndex} in step with the writes that reached the delegate. Bulk deletes only drop the todos
+ * indexed before they started, so a todo added meanwhile is never lost from the index; {@link TodoSearch} skips
+ * entries whose todo is gone.
+ */
+class IndexingTodoRepository extends ForwardingTodoRepository {
+
+    private final TodoRepository delegate;
+    private final TodoSearchIndex index;
+
+    IndexingTodoRepository(TodoRepository delegate, TodoSearchIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @Override
+    protected TodoRepository delegate() {
+        return delegate;
+    }
+
+    @Override
+    public <S extends TodoEntity> S save(S entity) {
+        S saved = delegate.save(entity);
+
+        index.add(saved);
+
+        return saved;
+    }
+
+    @Override
+    public <S extends TodoEntity> Iterable<S> saveAll(Iterable<S> entities) {
+        Iterable<S> saved = delegate.saveAll(entities);
+
+        saved.forEach(index::add);
+
+        return saved;
+    }
+
+    @Override
+    public int updateStatus(String owner, UUID id, TodoEntity.Status expected, TodoEntity.Status status) {
+        int updated = delegate.updateStatus(owner, id, expected, status);
+
+        if (updated > 0) {
+            index.updateStatus(owner, id, status);
+        }
+
+        return updated;
+    }
+
+    @Override
+    public boolean completeIfNew(String owner, UUID id) {
+        boolean completed = delegate.completeIfNew(owner, id);
+
+        if (completed) {
+            index.updateStatus(owner, id, TodoEntity.Status.COMPLETED);
+        }
+
+        return completed;
+    }
+
+    @Override
+    public Map<UUID, CompletionResult> completeAll(String owner, Collection<UUID> ids) {
+        Map<UUID, CompletionResult> results = delegate.completeAll(owner, ids);
+
+        results.forEach((id, result) -> {
+            if (result == CompletionResult.COMPLETED) {
+                index.updateStatus(owner, id, TodoEntity.Status.COMPLETED);
+            }
+        });
+
+        return results;
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        Optional<TodoEntity> todo = delegate.findById(id);
+
+        delegate.deleteById(id);
+
+        todo.ifPresent(deleted -> index.remove(deleted.getOwner(), id));
+    }
+
+    @Override
+    public void delete(TodoEntity entity) {
+        delegate.delete(entity);
+
+        index.remove(entity.getOwner(), entity.getId());
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends TodoEntity> entities) {
+        delegate.deleteAll(entities);
+
+        entities.forEach(entity -> index.remove(entity.getOwner(), entity.getId()));
+    }
+
+    @Override
+    public void deleteAll() {
+        Map<String, List<UUID>> indexed = index.ids();
+
+        delegate.deleteAll();
+
+        indexed.forEach((owner, ids) -> index.removeIf(owner, ids, null));
+    }
+
+    @Override
+    public int deleteInBulkByOwner(String owner) {
+        List<UUID> indexed = index.ids(owner, null);
+        int deleted = delegate.deleteInBulkByOwner(owner);
+
+        index.removeIf(owner, indexed, null);
+
+        return deleted;
+    }
+
+    @Override
+    public int deleteInBulkByOwnerAndStatus(String owner, TodoEntity.Status status) {
+        List<UUID> indexed = index.ids(owner, status);
+        int deleted = delegate.deleteInBulkByOwnerAndStatus(owner, status);
+
+        index.removeIf(owner, indexed, status);
+
+        return deleted;
+    }
+}
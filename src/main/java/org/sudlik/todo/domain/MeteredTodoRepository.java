@@ -0,0 +1,66 @@
+package org.sudlik.todo.domain;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every {@link TodoRepository} call as {@code todo.repository} tagged with the method name, with p50/p99 and a
+ * latency histogram. A proxy rather than a {@link ForwardingTodoRepository} so new repository methods are timed
+ * without being listed here.
+ */
+class MeteredTodoRepository implements InvocationHandler {
+
+    private final TodoRepository delegate;
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    private MeteredTodoRepository(TodoRepository delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    static TodoRepository create(TodoRepository delegate, MeterRegistry meterRegistry) {
+        return (TodoRepository) Proxy.newProxyInstance(
+                TodoRepository.class.getClassLoader(),
+                new Class<?>[] {TodoRepository.class},
+                new MeteredTodoRepository(delegate, meterRegistry));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass().equals(Object.class)) {
+            return invokeDelegate(method, args);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        try {
+            return invokeDelegate(method, args);
+        } finally {
+            sample.stop(timers.computeIfAbsent(method, this::createTimer));
+        }
+    }
+
+    private Object invokeDelegate(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Timer createTimer(Method method) {
+        return Timer.builder("todo.repository")
+                .tag("method", method.getName())
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -1,9 +1,11 @@
 package org.sudlik.todo.domain;
 
+import java.util.UUID;
+
 public class NotNewTodoCanNotBeCompletedException extends RuntimeException {
-    public final String id;
+    public final UUID id;
 
-    public NotNewTodoCanNotBeCompletedException(String id) {
+    public NotNewTodoCanNotBeCompletedException(UUID id) {
         super();
 
         this.id = id;
@@ -0,0 +1,123 @@
+package org.sudlik.todo.domain;
+
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * {@link TodoRepository} for reactive handlers. Calls to an engine that may block, JPA or the write-ahead log, run on
+ * the given scheduler, so they never hold an event loop thread; calls to the plain in-memory engine only touch
+ * concurrent maps and run in place.
+ */
+public class ReactiveTodoRepository {
+
+    private static final int STREAM_CHUNK_SIZE = 500;
+
+    private final TodoRepository todoRepository;
+    private final TodoSearch todoSearch;
+    private final Scheduler scheduler;
+
+    ReactiveTodoRepository(TodoRepository todoRepository, TodoSearch todoSearch, Scheduler scheduler) {
+        this.todoRepository = todoRepository;
+        this.todoSearch = todoSearch;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * The todo with the id, if it is on the owner's list.
+     */
+    public Mono<TodoEntity> findById(String owner, UUID id) {
+        return call(() -> todoRepository.findById(id).filter(todo -> todo.getOwner().equals(owner)).orElse(null));
+    }
+
+    public Mono<Boolean> existsById(String owner, UUID id) {
+        return findById(owner, id).hasElement();
+    }
+
+    public Mono<Long> count(String owner, @Nullable TodoEntity.Status status) {
+        return call(() -> status == null
+                ? todoRepository.countByOwner(owner)
+                : todoRepository.countByOwnerAndStatus(owner, status));
+    }
+
+    public Mono<List<TodoEntity>> findPage(
+            String owner,
+            @Nullable TodoEntity.Status status,
+            @Nullable UUID after,
+            int limit) {
+        return call(() -> todoRepository.findPage(owner, status, after, limit));
+    }
+
+    /**
+     * Every todo of the owner after {@code after} in id order, for clients that do not page.
+     */
+    public Mono<List<TodoEntity>> findAllAfter(String owner, @Nullable TodoEntity.Status status, @Nullable UUID after) {
+        return stream(owner, status, after).collectList();
+    }
+
+    public Mono<List<TodoEntity>> search(
+            String owner,
+            String query,
+            @Nullable TodoEntity.Status status,
+            @Nullable UUID after,
+            int limit) {
+        return call(() -> todoSearch.search(owner, query, status, after, limit));
+    }
+
+    /**
+     * Every todo of the owner after {@code after} in id order, read in keyset pages as the subscriber asks for more, so
+     * neither a connection nor a transaction is held while the stream is written out.
+     */
+    public Flux<TodoEntity> stream(String owner, @Nullable TodoEntity.Status status, @Nullable UUID after) {
+        return findPage(owner, status, after, STREAM_CHUNK_SIZE)
+                .expand(page -> page.size() < STREAM_CHUNK_SIZE
+                        ? Mono.empty()
+                        : findPage(owner, status, page.get(page.size() - 1).getId(), STREAM_CHUNK_SIZE))
+                .flatMapIterable(page -> page);
+    }
+
+    public Mono<TodoEntity> save(TodoEntity todoEntity) {
+        return call(() -> todoRepository.save(todoEntity));
+    }
+
+    public Mono<List<TodoEntity>> saveAll(List<TodoEntity> todoEntities) {
+        return call(() -> {
+            todoRepository.saveAll(todoEntities);
+
+            return todoEntities;
+        });
+    }
+
+    public Mono<Boolean> completeIfNew(String owner, UUID id) {
+        return call(() -> todoRepository.completeIfNew(owner, id));
+    }
+
+    public Mono<Map<UUID, CompletionResult>> completeAll(String owner, Collection<UUID> ids) {
+        return call(() -> todoRepository.completeAll(owner, ids));
+    }
+
+    public Mono<Void> delete(TodoEntity todoEntity) {
+        return call(() -> {
+            todoRepository.delete(todoEntity);
+
+            return null;
+        });
+    }
+
+    public Mono<Integer> deleteAll(String owner, @Nullable TodoEntity.Status status) {
+        return call(() -> status == null
+                ? todoRepository.deleteInBulkByOwner(owner)
+                : todoRepository.deleteInBulkByOwnerAndStatus(owner, status));
+    }
+
+    private <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+}
@@ -0,0 +1,51 @@
+package org.sudlik.todo.domain;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+import java.util.UUID;
+
+/**
+ * One write to a todo list as published by {@link TodoChangeFeed}. A created todo carries its description and status,
+ * a completed or deleted one only its id, and an erase of the list carries the status it was limited to, if any. Every
+ * change carries the owner of the list, except an erase of all lists at once.
+ */
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+@Getter
+public class TodoChange {
+
+    private final long sequence;
+    private final Type type;
+
+    @Nullable
+    private final String owner;
+
+    @Nullable
+    private final UUID id;
+
+    @Nullable
+    private final String description;
+
+    @Nullable
+    private final TodoEntity.Status status;
+
+    public enum Type {
+        CREATED("created"),
+        COMPLETED("completed"),
+        DELETED("deleted"),
+        ERASED("erased");
+
+        private String value;
+
+        Type(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.sudlik.todo.domain;
+
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.io.Closeable;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Publishes every write to the todo lists to any number of subscribers, each following the list of one owner. The
+ * latest {@code retained} changes of all lists are kept in a ring which every subscriber reads at its own pace, so a
+ * reconnecting subscriber resumes after the last change it saw and a slow one costs no memory of its own. A
+ * subscriber that falls so far behind that the changes it still needs are overwritten fails with
+ * {@link ChangesNotRetainedException} and has to read the list again.
+ *
+ * <p>Writers only append to the ring. A single dispatcher thread then hands the new changes to every subscriber that
+ * has asked for more; one that has not is picked up again when it asks. No thread waits on an idle subscriber.
+ */
+public class TodoChangeFeed implements Closeable {
+
+    private final AtomicReferenceArray<TodoChange> ring;
+    private final long first;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "todo-change-feed");
+
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    private volatile long last;
+
+    TodoChangeFeed(int retained) {
+        ring = new AtomicReferenceArray<>(retained);
+        // Sequences of a run start above those of any earlier one, unless it published more than a thousand changes a
+        // millisecond, so a sequence from before a restart is never taken for a recent one.
+        first = System.currentTimeMillis() * 1000;
+        last = first;
+    }
+
+    /**
+     * Sequence of the latest change, where a new subscriber starts.
+     */
+    public long lastSequence() {
+        return last;
+    }
+
+    /**
+     * Whether every change after the given sequence is still retained.
+     */
+    public boolean canResumeAfter(long sequence) {
+        long current = last;
+
+        return sequence <= current && sequence >= Math.max(first, current - ring.length());
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Changes of the owner's list after {@code after}, or from now on, as they are published. Only as many changes as
+     * were requested are emitted; the rest wait in the ring.
+     */
+    public Flux<TodoChange> changes(String owner, @Nullable Long after) {
+        return Flux.create(sink -> {
+            long start = after == null ? last : after;
+
+            if (!canResumeAfter(start)) {
+                sink.error(new ChangesNotRetainedException(start));
+
+                return;
+            }
+
+            Subscription subscription = new Subscription(owner, sink, start);
+
+            subscriptions.add(subscription);
+            sink.onDispose(() -> subscriptions.remove(subscription));
+            sink.onRequest(requested -> subscription.drain());
+        });
+    }
+
+    void created(TodoEntity todo) {
+        publish(TodoChange.Type.CREATED, todo.getOwner(), todo.getId(), todo.getDescription(), todo.getStatus());
+    }
+
+    void completed(String owner, UUID id) {
+        publish(TodoChange.Type.COMPLETED, owner, id, null, TodoEntity.Status.COMPLETED);
+    }
+
+    void deleted(String owner, UUID id) {
+        publish(TodoChange.Type.DELETED, owner, id, null, null);
+    }
+
+    /**
+     * Erase of the owner's list, or of every list when there is no owner.
+     */
+    void erased(@Nullable String owner, @Nullable TodoEntity.Status status) {
+        publish(TodoChange.Type.ERASED, owner, null, null, status);
+    }
+
+    @Override
+    public void close() {
+        dispatcher.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.sink.complete());
+    }
+
+    private void publish(
+            TodoChange.Type type,
+            @Nullable String owner,
+            @Nullable UUID id,
+            @Nullable String description,
+            @Nullable TodoEntity.Status status) {
+        synchronized (ring) {
+            long sequence = last + 1;
+
+            ring.set(index(sequence), new TodoChange(sequence, type, owner, id, description, status));
+            last = sequence;
+        }
+
+        if (!subscriptions.isEmpty() && dispatchScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        dispatchScheduled.set(false);
+
+        for (Subscription subscription : subscriptions) {
+            subscription.drain();
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % ring.length());
+    }
+
+    private class Subscription {
+
+        final String owner;
+        final FluxSink<TodoChange> sink;
+        final AtomicInteger pending = new AtomicInteger();
+        long delivered;
+
+        Subscription(String owner, FluxSink<TodoChange> sink, long delivered) {
+            this.owner = owner;
+            this.sink = sink;
+            this.delivered = delivered;
+        }
+
+        /**
+         * Emits retained changes of the owner while the subscriber asks for them, stepping over those of other owners.
+         * Calls from the dispatcher and from requests of the subscriber are serialized: whoever comes while another
+         * call runs only makes it loop once more.
+         */
+        void drain() {
+            if (pending.getAndIncrement() != 0) {
+                return;
+            }
+
+            do {
+                while (delivered < last && sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    TodoChange change = ring.get(index(delivered + 1));
+
+                    if (change == null || change.getSequence() != delivered + 1) {
+                        sink.error(new ChangesNotRetainedException(delivered));
+
+                        return;
+                    }
+
+                    if (change.getOwner() == null || change.getOwner().equals(owner)) {
+                        sink.next(change);
+                    }
+
+                    delivered++;
+                }
+            } while (pending.decrementAndGet() != 0);
+        }
+    }
+}
@@ -1,47 +1,115 @@
 package org.sudlik.todo.domain;
 
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.Optional;
+import java.util.UUID;
 
+/**
+ * A todo on the list of its owner. Every list query is scoped to one owner, so those indexes lead with the owner: the
+ * rows of one owner are a contiguous range of each, and a page, count or erase reads only that range. The status index
+ * serves the {@code todo.count} gauges, which count every owner's todos of a status on each scrape.
+ */
 @Entity
-@AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "todo_entity_owner_id_idx", columnList = "owner, id"),
+        @Index(name = "todo_entity_owner_status_id_idx", columnList = "owner, status, id"),
+        @Index(name = "todo_entity_status_idx", columnList = "status")})
 @NoArgsConstructor
 @Getter
-public class TodoEntity {
+public class TodoEntity implements Persistable<UUID> {
+
+    /**
+     * Owner of the todos created through the routes without one.
+     */
+    public static final String DEFAULT_OWNER = "default";
 
     @Id
-    @Column(columnDefinition = "BINARY(32)")
+    @Column(columnDefinition = "BINARY(16)")
+    @NotNull
+    private UUID id;
+
     @NotBlank
-    private String id;
+    @Size(max = 64)
+    @Column(length = 64, nullable = false)
+    private String owner;
 
     @NotBlank
     @Column
     private String description;
 
     @NotNull
-    @Column
+    @Column(length = 16)
+    @Enumerated(EnumType.STRING)
     private Status status;
 
-    public TodoEntity(String id, String description) {
+    @Version
+    @Column
+    private long version;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean persisted;
+
+    public TodoEntity(UUID id, String owner, String description, Status status) {
         this.id = id;
+        this.owner = owner;
         this.description = description;
-        this.status = Status.NEW;
+        this.status = status;
     }
 
-    public void complete() {
-        if (!status.equals(Status.NEW)) {
-            throw new NotNewTodoCanNotBeCompletedException(id);
-        }
+    public TodoEntity(UUID id, String owner, String description) {
+        this(id, owner, description, Status.NEW);
+    }
+
+    public TodoEntity(UUID id, String description, Status status) {
+        this(id, DEFAULT_OWNER, description, status);
+    }
+
+    public TodoEntity(UUID id, String description) {
+        this(id, description, Status.NEW);
+    }
+
+    /**
+     * A todo that is already stored, for engines that keep entities outside a persistence context.
+     */
+    TodoEntity(UUID id, String owner, String description, Status status, long version) {
+        this(id, owner, description, status);
+        this.version = version;
+        persisted = true;
+    }
 
-        status = Status.COMPLETED;
+    /**
+     * Ids are assigned before saving, so without this Spring Data would merge every new todo, which costs a select
+     * before each insert.
+     */
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
     }
 
     public enum Status {
@@ -54,6 +122,16 @@ public class TodoEntity {
             this.value = value;
         }
 
+        public static Optional<Status> fromValue(String value) {
+            for (Status status : values()) {
+                if (status.value.equals(value)) {
+                    return Optional.of(status);
+                }
+            }
+
+            return Optional.empty();
+        }
+
         @Override
         public String toString() {
             return value;
@@ -0,0 +1,36 @@
+package org.sudlik.todo.domain;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modification counter of each owner's todo list, advanced after every write to it, so a write busts the cached pages
+ * of that owner only. Erasing every list advances a counter of its own that is part of every version. The random
+ * epoch keeps versions of different application runs apart, so a restarted instance never repeats a version of an
+ * earlier one. A counter is kept for every owner written to since the start, as dropping one would repeat its versions.
+ */
+@Component
+public class TodoListVersion {
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final AtomicLong clears = new AtomicLong();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public String current(String owner) {
+        AtomicLong counter = counters.get(owner);
+
+        return epoch + "-" + clears.get() + "-" + (counter == null ? 0 : counter.get());
+    }
+
+    void increment(String owner) {
+        counters.computeIfAbsent(owner, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    void incrementAll() {
+        clears.incrementAndGet();
+    }
+}
@@ -0,0 +1,157 @@
+package org.sudlik.todo.domain;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+class TodoRepositoryConfiguration {
+
+    /**
+     * Takes the place of the JPA repository, which the {@code memory} profile switches off together with the data
+     * source. With the write-ahead log on, the todos are replayed from it before the application starts serving.
+     */
+    @Bean("todoRepository")
+    @ConditionalOnProperty(name = "todo.repository.engine", havingValue = "memory")
+    TodoRepository inMemoryTodoRepository(
+            @Value("${todo.wal.enabled:false}") boolean walEnabled,
+            @Value("${todo.wal.directory:data/wal}") Path directory,
+            @Value("${todo.wal.segment-size:64MB}") DataSize segmentSize,
+            @Value("${todo.wal.commit-delay:0ms}") Duration commitDelay,
+            @Value("${todo.wal.snapshot-after-segments:4}") int snapshotAfterSegments) throws IOException {
+        if (!walEnabled) {
+            return new InMemoryTodoRepository();
+        }
+
+        return DurableTodoRepository.open(
+                directory,
+                Math.toIntExact(segmentSize.toBytes()),
+                commitDelay,
+                snapshotAfterSegments);
+    }
+
+    /**
+     * Only the plain in-memory engine never blocks; anything else is called from virtual threads when they are on, or
+     * from a bounded elastic scheduler.
+     */
+    @Bean
+    ReactiveTodoRepository reactiveTodoRepository(
+            TodoRepository todoRepository,
+            TodoSearch todoSearch,
+            @Qualifier("virtualThreadExecutor") Optional<ExecutorService> virtualThreadExecutor,
+            @Value("${todo.repository.engine:jpa}") String engine,
+            @Value("${todo.wal.enabled:false}") boolean walEnabled) {
+        if (engine.equals("memory") && !walEnabled) {
+            return new ReactiveTodoRepository(todoRepository, todoSearch, Schedulers.immediate());
+        }
+
+        return new ReactiveTodoRepository(todoRepository, todoSearch, virtualThreadExecutor
+                .map(executor -> Schedulers.fromExecutorService(executor, "virtual"))
+                .orElseGet(Schedulers::boundedElastic));
+    }
+
+    /**
+     * Built from the engine before the application starts serving, then kept up to date by the primary repository.
+     */
+    @Bean
+    TodoSearchIndex todoSearchIndex(@Qualifier("todoRepository") TodoRepository todoRepository) {
+        return TodoSearchIndex.build(todoRepository);
+    }
+
+    @Bean
+    TodoSearch todoSearch(TodoSearchIndex todoSearchIndex, TodoRepository todoRepository) {
+        return new TodoSearch(todoSearchIndex, todoRepository);
+    }
+
+    @Bean
+    TodoChangeFeed todoChangeFeed(@Value("${todo.changes.retained:10000}") int retained, MeterRegistry meterRegistry) {
+        TodoChangeFeed todoChangeFeed = new TodoChangeFeed(retained);
+
+        Gauge.builder("todo.changes.subscribers", todoChangeFeed, TodoChangeFeed::subscriberCount)
+                .register(meterRegistry);
+
+        return todoChangeFeed;
+    }
+
+    /**
+     * Saves new todos of concurrent requests in group commits, for engines that commit every save on its own.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "todo.repository.coalescing.enabled", havingValue = "true")
+    CoalescingTodoRepository coalescingTodoRepository(
+            @Qualifier("todoRepository") TodoRepository todoRepository,
+            MeterRegistry meterRegistry,
+            @Value("${todo.repository.coalescing.queue-capacity:10000}") int queueCapacity,
+            @Value("${todo.repository.coalescing.batch-size:50}") int batchSize,
+            @Value("${todo.repository.coalescing.linger:0ms}") Duration linger) {
+        return new CoalescingTodoRepository(todoRepository, queueCapacity, batchSize, linger, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    TodoRepository primaryTodoRepository(
+            @Qualifier("todoRepository") TodoRepository todoRepository,
+            Optional<CoalescingTodoRepository> coalescingTodoRepository,
+            TodoSearchIndex todoSearchIndex,
+            TodoListVersion todoListVersion,
+            TodoChangeFeed todoChangeFeed,
+            MeterRegistry meterRegistry,
+            @Value("${todo.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${todo.cache.todos.maximum-size:10000}") long todosMaximumSize,
+            @Value("${todo.cache.pages.maximum-weight:100000}") long pagesMaximumWeight,
+            @Value("${todo.cache.expire-after-write:5m}") Duration expireAfterWrite) {
+        TodoRepository repository = coalescingTodoRepository.<TodoRepository>map(coalescing -> coalescing)
+                .orElse(todoRepository);
+
+        if (cacheEnabled) {
+            Caffeine<Object, Object> todos = Caffeine.newBuilder()
+                    .maximumSize(todosMaximumSize)
+                    .expireAfterWrite(expireAfterWrite)
+                    .recordStats();
+
+            Caffeine<CachingTodoRepository.PageKey, List<TodoEntity>> pages = Caffeine.newBuilder()
+                    .maximumWeight(pagesMaximumWeight)
+                    .<CachingTodoRepository.PageKey, List<TodoEntity>>weigher((pageKey, page) -> page.size() + 1)
+                    .expireAfterWrite(expireAfterWrite)
+                    .recordStats();
+
+            CachingTodoRepository cachingTodoRepository = new CachingTodoRepository(repository, todos, pages);
+
+            CaffeineCacheMetrics.monitor(meterRegistry, cachingTodoRepository.todos(), "todos");
+            CaffeineCacheMetrics.monitor(meterRegistry, cachingTodoRepository.pages(), "todoPages");
+
+            repository = cachingTodoRepository;
+        }
+
+        repository = new IndexingTodoRepository(repository, todoSearchIndex);
+        repository = MeteredTodoRepository.create(
+                new ChangeTrackingTodoRepository(repository, todoListVersion, todoChangeFeed),
+                meterRegistry);
+
+        // Counted by the engine, so scrapes are not timed as repository calls and never fill the caches.
+        for (TodoEntity.Status status : TodoEntity.Status.values()) {
+            Gauge.builder("todo.count", todoRepository, counted -> counted.countByStatus(status))
+                    .tag("status", status.toString())
+                    .register(meterRegistry);
+        }
+
+        return repository;
+    }
+}
@@ -0,0 +1,26 @@
+package org.sudlik.todo.domain;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface TodoRepositoryCustom {
+
+    /**
+     * Passes every todo, ordered by id, to the action while reading the table in fetch-size batches. Entities are
+     * detached once handled, so memory use does not grow with the size of the table.
+     */
+    void forEachTodo(Consumer<? super TodoEntity> action);
+
+    /**
+     * Like {@link #forEachTodo(Consumer)}, for the todos of one owner.
+     */
+    void forEachTodo(String owner, Consumer<? super TodoEntity> action);
+
+    /**
+     * Completes the new todos of the owner among the given ids with set-based updates and reports the outcome for
+     * every distinct id, in the order given. Ids of other owners' todos are not found.
+     */
+    Map<UUID, CompletionResult> completeAll(String owner, Collection<UUID> ids);
+}
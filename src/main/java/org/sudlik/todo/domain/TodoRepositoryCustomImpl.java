@@ -0,0 +1,102 @@
+package org.sudlik.todo.domain;
+
+import com.google.common.collect.Iterables;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+class TodoRepositoryCustomImpl implements TodoRepositoryCustom {
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int UPDATE_BATCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachTodo(Consumer<? super TodoEntity> action) {
+        forEach(entityManager.createQuery("select t from TodoEntity t order by t.id", TodoEntity.class), action);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachTodo(String owner, Consumer<? super TodoEntity> action) {
+        forEach(entityManager
+                .createQuery("select t from TodoEntity t where t.owner = :owner order by t.owner, t.id", TodoEntity.class)
+                .setParameter("owner", owner), action);
+    }
+
+    @Override
+    @Transactional
+    public Map<UUID, CompletionResult> completeAll(String owner, Collection<UUID> ids) {
+        Map<UUID, CompletionResult> results = new LinkedHashMap<>();
+
+        for (List<UUID> batch : Iterables.partition(new LinkedHashSet<>(ids), UPDATE_BATCH_SIZE)) {
+            Map<UUID, TodoEntity.Status> statuses = new HashMap<>();
+
+            entityManager
+                    .createQuery("select t from TodoEntity t where t.id in :ids and t.owner = :owner", TodoEntity.class)
+                    .setParameter("ids", batch)
+                    .setParameter("owner", owner)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList()
+                    .forEach(todoEntity -> statuses.put(todoEntity.getId(), todoEntity.getStatus()));
+
+            List<UUID> newIds = new ArrayList<>();
+
+            for (UUID id : batch) {
+                TodoEntity.Status status = statuses.get(id);
+
+                if (status == null) {
+                    results.put(id, CompletionResult.NOT_FOUND);
+                } else if (status.equals(TodoEntity.Status.NEW)) {
+                    results.put(id, CompletionResult.COMPLETED);
+                    newIds.add(id);
+                } else {
+                    results.put(id, CompletionResult.NOT_NEW);
+                }
+            }
+
+            if (!newIds.isEmpty()) {
+                entityManager
+                        .createQuery("update TodoEntity t set t.status = :status, t.version = t.version + 1 where t.id in :ids")
+                        .setParameter("status", TodoEntity.Status.COMPLETED)
+                        .setParameter("ids", newIds)
+                        .executeUpdate();
+            }
+
+            entityManager.clear();
+        }
+
+        return results;
+    }
+
+    private void forEach(TypedQuery<TodoEntity> query, Consumer<? super TodoEntity> action) {
+        Stream<TodoEntity> todos = query
+                .setHint(QueryHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+
+        try (todos) {
+            todos.forEach(todoEntity -> {
+                action.accept(todoEntity);
+                entityManager.detach(todoEntity);
+            });
+        }
+    }
+}
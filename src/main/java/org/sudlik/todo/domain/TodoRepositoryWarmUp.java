@@ -0,0 +1,49 @@
+package org.sudlik.todo.domain;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * With lazy initialization and lazy repositories the first request would build the repositories, the search index and
+ * the first query plans. Once the application is ready this does it in the background instead, while the instance is
+ * still waiting for traffic, by resolving the repository and reading the first page and count of the default list.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "todo.startup.warm-up", havingValue = "true")
+class TodoRepositoryWarmUp implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final ObjectProvider<TodoRepository> todoRepository;
+
+    TodoRepositoryWarmUp(ObjectProvider<TodoRepository> todoRepository) {
+        this.todoRepository = todoRepository;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        Thread thread = new Thread(this::warmUp, "todo-warm-up");
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+
+        try {
+            TodoRepository repository = todoRepository.getObject();
+
+            repository.findByOwnerOrderByIdAsc(TodoEntity.DEFAULT_OWNER, PageRequest.of(0, 1));
+            repository.countByOwner(TodoEntity.DEFAULT_OWNER);
+
+            log.info("Warmed up the todo repository in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Warming up the todo repository failed", e);
+        }
+    }
+}
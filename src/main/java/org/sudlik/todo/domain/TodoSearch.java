@@ -0,0 +1,66 @@
+package org.sudlik.todo.domain;
+
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Finds the todos of an owner whose description contains every word of a query, a keyset page at a time in id order.
+ * Candidates come from the owner's part of the {@link TodoSearchIndex} and are read by id, so the table is never
+ * scanned; a candidate whose todo is gone or has moved out of the status is skipped and the page is filled from the
+ * next ones.
+ */
+public class TodoSearch {
+
+    private final TodoSearchIndex index;
+    private final TodoRepository todoRepository;
+
+    TodoSearch(TodoSearchIndex index, TodoRepository todoRepository) {
+        this.index = index;
+        this.todoRepository = todoRepository;
+    }
+
+    public List<TodoEntity> search(
+            String owner,
+            String query,
+            @Nullable TodoEntity.Status status,
+            @Nullable UUID after,
+            int limit) {
+        List<String> terms = TodoSearchIndex.terms(query);
+        List<TodoEntity> todos = new ArrayList<>(limit);
+        UUID cursor = after;
+
+        while (todos.size() < limit) {
+            int wanted = limit - todos.size();
+            List<UUID> ids = index.search(owner, terms, status, cursor, wanted);
+
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            Map<UUID, TodoEntity> found = new HashMap<>();
+
+            todoRepository.findAllById(ids).forEach(todo -> found.put(todo.getId(), todo));
+
+            for (UUID id : ids) {
+                TodoEntity todo = found.get(id);
+
+                if (todo != null && todo.getOwner().equals(owner) && (status == null || todo.getStatus() == status)) {
+                    todos.add(todo);
+                }
+            }
+
+            if (ids.size() < wanted) {
+                break;
+            }
+
+            cursor = ids.get(ids.size() - 1);
+        }
+
+        return todos;
+    }
+}
@@ -0,0 +1,298 @@
+package org.sudlik.todo.domain;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Inverted index from the words of todo descriptions to the ids of the todos that contain them, with a partition of
+ * its own for every owner, so a query of one owner never walks the todos of another. Posting lists are kept in id
+ * order, so a query walks the shortest of them from the cursor on, like a keyset page walks the table, and only probes
+ * the others. The status of every todo is kept alongside to filter without reading the todos.
+ *
+ * <p>Each posting list changes only inside {@link ConcurrentMap#compute}, so an emptied list is dropped without losing
+ * a concurrent add; queries read without locks.
+ */
+@Slf4j
+class TodoSearchIndex {
+
+    private static final Partition EMPTY = new Partition();
+
+    private final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes every stored todo in one read. Posting lists are gathered in plain lists first and each filled into its
+     * skip list at once, which is much cheaper than a {@link ConcurrentMap#compute} per word of every todo.
+     */
+    static TodoSearchIndex build(TodoRepository todoRepository) {
+        long start = System.nanoTime();
+        TodoSearchIndex index = new TodoSearchIndex();
+        Map<String, Map<String, List<UUID>>> termIds = new HashMap<>();
+
+        todoRepository.forEachTodo(todo -> {
+            List<String> terms = terms(todo.getDescription());
+            Map<String, List<UUID>> ownerTermIds = termIds.computeIfAbsent(todo.getOwner(), owner -> new HashMap<>());
+
+            index.createdPartition(todo.getOwner())
+                    .documents
+                    .put(todo.getId(), new Document(terms.toArray(new String[0]), todo.getStatus()));
+
+            for (String term : terms) {
+                ownerTermIds.computeIfAbsent(term, key -> new ArrayList<>(1)).add(todo.getId());
+            }
+        });
+
+        termIds.forEach((owner, ownerTermIds) -> {
+            Partition partition = index.createdPartition(owner);
+
+            ownerTermIds.forEach((term, ids) -> partition.postings.put(term, new Postings(ids)));
+        });
+
+        log.info(
+                "Indexed {} todos of {} owners in {} ms",
+                index.partitions.values().stream().mapToInt(partition -> partition.documents.size()).sum(),
+                index.partitions.size(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        return index;
+    }
+
+    /**
+     * Distinct lower-cased words of the text: runs of letters and digits. Scanned by hand rather than split with a
+     * pattern, which took most of the time of a rebuild.
+     */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+
+        for (int i = 0; i <= text.length(); ) {
+            int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+            boolean wordPart = Character.isLetterOrDigit(codePoint);
+
+            if (wordPart && start < 0) {
+                start = i;
+            } else if (!wordPart && start >= 0) {
+                String term = text.substring(start, i).toLowerCase(Locale.ROOT);
+
+                if (!terms.contains(term)) {
+                    terms.add(term);
+                }
+
+                start = -1;
+            }
+
+            i += Character.charCount(codePoint);
+        }
+
+        return terms;
+    }
+
+    void add(TodoEntity todo) {
+        Partition partition = createdPartition(todo.getOwner());
+        String[] terms = terms(todo.getDescription()).toArray(new String[0]);
+
+        partition.documents.put(todo.getId(), new Document(terms, todo.getStatus()));
+
+        for (String term : terms) {
+            partition.postings.compute(term, (key, termPostings) -> {
+                Postings updated = termPostings == null ? new Postings() : termPostings;
+
+                updated.add(todo.getId());
+
+                return updated;
+            });
+        }
+    }
+
+    void updateStatus(String owner, UUID id, TodoEntity.Status status) {
+        partition(owner).documents.computeIfPresent(id, (key, document) -> new Document(document.terms, status));
+    }
+
+    void remove(String owner, UUID id) {
+        Partition partition = partition(owner);
+        Document document = partition.documents.remove(id);
+
+        if (document == null) {
+            return;
+        }
+
+        for (String term : document.terms) {
+            partition.postings.computeIfPresent(term, (key, termPostings) -> termPostings.remove(id) ? null : termPostings);
+        }
+    }
+
+    /**
+     * Ids of every indexed todo by owner.
+     */
+    Map<String, List<UUID>> ids() {
+        return partitions.keySet()
+                .stream()
+                .collect(Collectors.toMap(owner -> owner, owner -> ids(owner, null)));
+    }
+
+    /**
+     * Ids of the indexed todos of the owner, all of them or those with the given status.
+     */
+    List<UUID> ids(String owner, @Nullable TodoEntity.Status status) {
+        return partition(owner).documents.entrySet()
+                .stream()
+                .filter(document -> status == null || document.getValue().status == status)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    void removeIf(String owner, List<UUID> ids, @Nullable TodoEntity.Status status) {
+        Partition partition = partition(owner);
+
+        for (UUID id : ids) {
+            Document document = partition.documents.get(id);
+
+            if (document != null && (status == null || document.status == status)) {
+                remove(owner, id);
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} ids after {@code after}, in id order, of the owner's todos containing every term.
+     */
+    List<UUID> search(
+            String owner,
+            List<String> terms,
+            @Nullable TodoEntity.Status status,
+            @Nullable UUID after,
+            int limit) {
+        Partition partition = partition(owner);
+        List<Postings> termPostings = new ArrayList<>(terms.size());
+
+        for (String term : terms) {
+            Postings found = partition.postings.get(term);
+
+            if (found == null) {
+                return List.of();
+            }
+
+            termPostings.add(found);
+        }
+
+        if (termPostings.isEmpty()) {
+            return List.of();
+        }
+
+        termPostings.sort(Comparator.comparingInt(Postings::size));
+
+        NavigableSet<UUID> shortest = termPostings.get(0).ids;
+        List<UUID> ids = new ArrayList<>(Math.min(limit, termPostings.get(0).size()));
+
+        for (UUID id : after == null ? shortest : shortest.tailSet(after, false)) {
+            if (matches(partition, id, termPostings, status)) {
+                ids.add(id);
+
+                if (ids.size() == limit) {
+                    break;
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    private Partition partition(String owner) {
+        return partitions.getOrDefault(owner, EMPTY);
+    }
+
+    private Partition createdPartition(String owner) {
+        return partitions.computeIfAbsent(owner, key -> new Partition());
+    }
+
+    private static boolean matches(
+            Partition partition,
+            UUID id,
+            List<Postings> termPostings,
+            @Nullable TodoEntity.Status status) {
+        if (status != null) {
+            Document document = partition.documents.get(id);
+
+            if (document == null || document.status != status) {
+                return false;
+            }
+        }
+
+        for (int i = 1; i < termPostings.size(); i++) {
+            if (!termPostings.get(i).ids.contains(id)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static class Partition {
+
+        final ConcurrentMap<String, Postings> postings = new ConcurrentHashMap<>();
+        final ConcurrentMap<UUID, Document> documents = new ConcurrentHashMap<>();
+    }
+
+    private static class Document {
+
+        final String[] terms;
+        final TodoEntity.Status status;
+
+        Document(String[] terms, TodoEntity.Status status) {
+            this.terms = terms;
+            this.status = status;
+        }
+    }
+
+    /**
+     * Ids containing one word. The size is kept apart because counting a skip list walks all of it.
+     */
+    private static class Postings {
+
+        final NavigableSet<UUID> ids = new ConcurrentSkipListSet<>(InMemoryTodoRepository.ID_ORDER);
+        final AtomicInteger size = new AtomicInteger();
+
+        Postings() {
+        }
+
+        Postings(Collection<UUID> initial) {
+            ids.addAll(initial);
+            size.set(ids.size());
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        void add(UUID id) {
+            if (ids.add(id)) {
+                size.incrementAndGet();
+            }
+        }
+
+        /**
+         * Returns true when no id is left.
+         */
+        boolean remove(UUID id) {
+            if (ids.remove(id)) {
+                size.decrementAndGet();
+            }
+
+            return size.get() == 0;
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package org.sudlik.todo.domain;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of todo writes in memory-mapped segment files of a fixed size. A record is its length, a type byte,
+ * the payload and a CRC32 of type and payload; a zero length or a bad checksum ends a segment, so a write torn by a
+ * crash is dropped on replay. Appending only copies the record into the mapping; a single flusher thread forces
+ * everything appended so far in one go and wakes every writer waiting in {@link #sync}, which commits concurrent writes
+ * as a group.
+ *
+ * <p>A snapshot holds the state as of the start of a segment, written as put records. Once it is complete the segments
+ * before it are deleted, so replay reads the latest snapshot and the segments after it only.
+ */
+@Slf4j
+class WriteAheadLog implements Closeable {
+
+    /**
+     * Receives the records on replay, oldest first.
+     */
+    interface Handler {
+
+        void put(TodoEntity todo);
+
+        void status(UUID id, TodoEntity.Status status, long version);
+
+        void delete(UUID id);
+
+        void clear();
+
+        void clear(String owner);
+    }
+
+    // Logs written before todos had owners hold only this put record, without an owner, and are still replayed.
+    private static final byte PUT = 1;
+    private static final byte STATUS = 2;
+    private static final byte DELETE = 3;
+    private static final byte CLEAR = 4;
+    private static final byte OWNED_PUT = 5;
+    private static final byte CLEAR_OWNER = 6;
+
+    private static final int LENGTH_SIZE = Integer.BYTES;
+    private static final int CHECKSUM_SIZE = Integer.BYTES;
+    private static final int ID_SIZE = 2 * Long.BYTES;
+    private static final int STATUS_SIZE = Byte.BYTES;
+    private static final int OWNER_LENGTH_SIZE = Short.BYTES;
+
+    // Statuses are written as ordinals, so new ones have to be added at the end.
+    private static final TodoEntity.Status[] STATUSES = TodoEntity.Status.values();
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final int SNAPSHOT_BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long commitDelayNanos;
+    private final Thread flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appendedCondition = lock.newCondition();
+    private final Condition durableCondition = lock.newCondition();
+    private final CRC32 checksum = new CRC32();
+
+    private Segment segment;
+    private int snapshotSegment;
+    private long appended;
+    private long durable;
+    private RuntimeException failure;
+    private boolean closed;
+
+    private WriteAheadLog(Path directory, int segmentSize, Duration commitDelay, int snapshotSegment, int nextSegment)
+            throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.snapshotSegment = snapshotSegment;
+        commitDelayNanos = commitDelay.toNanos();
+        segment = Segment.create(directory, nextSegment, segmentSize);
+        flusher = new Thread(this::flush, "todo-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Replays the latest snapshot and every segment after it into {@code handler}, then starts a new segment for
+     * appends.
+     */
+    static WriteAheadLog open(Path directory, int segmentSize, Duration commitDelay, Handler handler)
+            throws IOException {
+        Files.createDirectories(directory);
+
+        List<Integer> snapshots = list(directory, SNAPSHOT_SUFFIX);
+        int snapshot = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        int nextSegment = snapshot;
+
+        if (!snapshots.isEmpty()) {
+            replay(directory.resolve(snapshot + SNAPSHOT_SUFFIX), handler);
+        }
+
+        for (int number : list(directory, SEGMENT_SUFFIX)) {
+            if (number >= snapshot) {
+                replay(directory.resolve(number + SEGMENT_SUFFIX), handler);
+                nextSegment = number + 1;
+            }
+        }
+
+        return new WriteAheadLog(directory, segmentSize, commitDelay, snapshot, nextSegment);
+    }
+
+    long put(TodoEntity todo) {
+        byte[] owner = todo.getOwner().getBytes(StandardCharsets.UTF_8);
+        byte[] description = todo.getDescription().getBytes(StandardCharsets.UTF_8);
+
+        return append(OWNED_PUT, putSize(owner, description), buffer -> writePut(buffer, todo, owner, description));
+    }
+
+    long status(UUID id, TodoEntity.Status status, long version) {
+        return append(STATUS, ID_SIZE + STATUS_SIZE + Long.BYTES, buffer -> {
+            writeId(buffer, id);
+            buffer.put((byte) status.ordinal()).putLong(version);
+        });
+    }
+
+    long delete(UUID id) {
+        return append(DELETE, ID_SIZE, buffer -> writeId(buffer, id));
+    }
+
+    long clear() {
+        return append(CLEAR, 0, buffer -> {
+        });
+    }
+
+    long clear(String owner) {
+        byte[] bytes = owner.getBytes(StandardCharsets.UTF_8);
+
+        return append(CLEAR_OWNER, bytes.length, buffer -> buffer.put(bytes));
+    }
+
+    /**
+     * Blocks until the record ending at {@code position}, and every record before it, is on disk.
+     */
+    void sync(long position) {
+        lock.lock();
+
+        try {
+            while (durable < position) {
+                if (failure != null) {
+                    throw new IllegalStateException("Write-ahead log can not be forced to disk", failure);
+                }
+
+                durableCondition.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the current segment and starts the next one, returning its number. Every record appended before the call
+     * is in an earlier segment.
+     */
+    int roll() {
+        lock.lock();
+
+        try {
+            Segment previous = segment;
+
+            segment = Segment.create(directory, previous.number + 1, segmentSize);
+            previous.buffer.force();
+            durable = appended;
+            durableCondition.signalAll();
+
+            return segment.number;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int segmentsSinceSnapshot() {
+        lock.lock();
+
+        try {
+            return segment.number - snapshotSegment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the todos passed by {@code todos} as the snapshot taken at the start of segment {@code number}, then
+     * deletes the segments and snapshots it replaces. The todos may include writes made after that segment started:
+     * every record sets the state of a single todo, or of all of them, so replaying the segment over them ends in the
+     * same state.
+     */
+    void snapshot(int number, Consumer<Consumer<TodoEntity>> todos) throws IOException {
+        Path snapshot = directory.resolve(number + SNAPSHOT_SUFFIX);
+        Path temporary = directory.resolve(number + SNAPSHOT_SUFFIX + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_BUFFER_SIZE);
+            CRC32 snapshotChecksum = new CRC32();
+
+            todos.accept(todo -> {
+                byte[] owner = todo.getOwner().getBytes(StandardCharsets.UTF_8);
+                byte[] description = todo.getDescription().getBytes(StandardCharsets.UTF_8);
+                int size = recordSize(putSize(owner, description));
+
+                try {
+                    if (size > buffer.remaining()) {
+                        drain(channel, buffer);
+                    }
+
+                    ByteBuffer target = size > buffer.capacity() ? ByteBuffer.allocate(size) : buffer;
+
+                    write(target, snapshotChecksum, OWNED_PUT, putSize(owner, description), record -> {
+                        writePut(record, todo, owner, description);
+                    });
+
+                    if (target != buffer) {
+                        drain(channel, target);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            drain(channel, buffer);
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE);
+
+        lock.lock();
+
+        try {
+            snapshotSegment = number;
+        } finally {
+            lock.unlock();
+        }
+
+        for (int segment : list(directory, SEGMENT_SUFFIX)) {
+            if (segment < number) {
+                Files.deleteIfExists(directory.resolve(segment + SEGMENT_SUFFIX));
+            }
+        }
+
+        for (int older : list(directory, SNAPSHOT_SUFFIX)) {
+            if (older < number) {
+                Files.deleteIfExists(directory.resolve(older + SNAPSHOT_SUFFIX));
+            }
+        }
+    }
+
+    /**
+     * Forces what is left and stops the flusher. Writers still waiting in {@link #sync} are released.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+
+        try {
+            closed = true;
+            appendedCondition.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long append(byte type, int payloadLength, Consumer<ByteBuffer> payload) {
+        int size = recordSize(payloadLength);
+
+        if (size > segmentSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Record of %d bytes does not fit a segment of %d bytes", size, segmentSize));
+        }
+
+        lock.lock();
+
+        try {
+            if (closed || failure != null) {
+                throw new IllegalStateException("Write-ahead log is closed", failure);
+            }
+
+            if (size > segment.buffer.remaining()) {
+                roll();
+            }
+
+            write(segment.buffer, checksum, type, payloadLength, payload);
+            appended = position(segment.number, segment.buffer.position());
+            appendedCondition.signal();
+
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flush() {
+        lock.lock();
+
+        try {
+            while (true) {
+                while (durable == appended && !closed) {
+                    appendedCondition.awaitUninterruptibly();
+                }
+
+                if (durable == appended) {
+                    return;
+                }
+
+                for (long delay = commitDelayNanos; delay > 0 && !closed; ) {
+                    delay = appendedCondition.awaitNanos(delay);
+                }
+
+                long target = appended;
+                MappedByteBuffer buffer = segment.buffer;
+
+                lock.unlock();
+
+                try {
+                    buffer.force();
+                } catch (RuntimeException e) {
+                    log.error("Forcing the todo log to disk failed", e);
+                    failure = e;
+                    return;
+                } finally {
+                    lock.lock();
+                }
+
+                durable = Math.max(durable, target);
+                durableCondition.signalAll();
+            }
+        } catch (InterruptedException e) {
+            failure = new IllegalStateException("Write-ahead log flusher interrupted", e);
+        } finally {
+            durableCondition.signalAll();
+            lock.unlock();
+        }
+    }
+
+    private static void replay(Path file, Handler handler) throws IOException {
+        ByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        CRC32 replayChecksum = new CRC32();
+
+        while (buffer.remaining() >= LENGTH_SIZE) {
+            int length = buffer.getInt();
+
+            if (length == 0) {
+                return;
+            }
+
+            if (length < 0 || length > buffer.remaining() - CHECKSUM_SIZE) {
+                log.warn("Todo log {} ends with a torn record at {}", file, buffer.position() - LENGTH_SIZE);
+                return;
+            }
+
+            ByteBuffer record = buffer.slice().limit(length);
+
+            buffer.position(buffer.position() + length);
+            replayChecksum.reset();
+            replayChecksum.update(record.duplicate());
+
+            if ((int) replayChecksum.getValue() != buffer.getInt()) {
+                log.warn("Todo log {} has a bad checksum at {}", file, buffer.position() - length - LENGTH_SIZE);
+                return;
+            }
+
+            dispatch(record, handler);
+        }
+    }
+
+    private static void dispatch(ByteBuffer record, Handler handler) {
+        byte type = record.get();
+
+        switch (type) {
+            case PUT:
+            case OWNED_PUT:
+                UUID id = readId(record);
+                TodoEntity.Status status = STATUSES[record.get()];
+                long version = record.getLong();
+                String owner = type == PUT
+                        ? TodoEntity.DEFAULT_OWNER
+                        : readString(record, Short.toUnsignedInt(record.getShort()));
+
+                handler.put(new TodoEntity(id, owner, readString(record, record.remaining()), status, version));
+                break;
+            case STATUS:
+                handler.status(readId(record), STATUSES[record.get()], record.getLong());
+                break;
+            case DELETE:
+                handler.delete(readId(record));
+                break;
+            case CLEAR:
+                handler.clear();
+                break;
+            case CLEAR_OWNER:
+                handler.clear(readString(record, record.remaining()));
+                break;
+            default:
+                throw new IllegalStateException("Unknown todo log record type " + type);
+        }
+    }
+
+    private static void write(
+            ByteBuffer buffer,
+            CRC32 checksum,
+            byte type,
+            int payloadLength,
+            Consumer<ByteBuffer> payload) {
+        int start = buffer.position();
+
+        buffer.putInt(1 + payloadLength).put(type);
+        payload.accept(buffer);
+        checksum.reset();
+        checksum.update(buffer.duplicate().position(start + LENGTH_SIZE).limit(buffer.position()));
+        buffer.putInt((int) checksum.getValue());
+    }
+
+    private static void writePut(ByteBuffer buffer, TodoEntity todo, byte[] owner, byte[] description) {
+        writeId(buffer, todo.getId());
+        buffer.put((byte) todo.getStatus().ordinal())
+                .putLong(todo.getVersion())
+                .putShort((short) owner.length)
+                .put(owner)
+                .put(description);
+    }
+
+    private static void writeId(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readId(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int putSize(byte[] owner, byte[] description) {
+        return ID_SIZE + STATUS_SIZE + Long.BYTES + OWNER_LENGTH_SIZE + owner.length + description.length;
+    }
+
+    private static int recordSize(int payloadLength) {
+        return LENGTH_SIZE + 1 + payloadLength + CHECKSUM_SIZE;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Positions order records across segments: the segment number, then the offset just past the record.
+     */
+    private static long position(int segment, int offset) {
+        return (long) segment << 32 | offset;
+    }
+
+    private static List<Integer> list(Path directory, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(suffix))
+                    .map(name -> Integer.valueOf(name.substring(0, name.length() - suffix.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static class Segment {
+
+        final int number;
+        final MappedByteBuffer buffer;
+
+        private Segment(int number, MappedByteBuffer buffer) {
+            this.number = number;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path directory, int number, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(
+                    directory.resolve(number + SEGMENT_SUFFIX),
+                    StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                return new Segment(number, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.sudlik.todo.presenter;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class CompletionPresenter {
+
+    private String id;
+    private String result;
+}
@@ -0,0 +1,11 @@
+package org.sudlik.todo.presenter;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class CountPresenter {
+
+    private long count;
+}
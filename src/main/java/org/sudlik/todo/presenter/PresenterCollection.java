@@ -1,5 +1,6 @@
 package org.sudlik.todo.presenter;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -14,11 +15,19 @@ public class PresenterCollection<T> {
     private Collection<T> collection;
     private int size;
 
-    public PresenterCollection(@NonNull Collection<T> collection) {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next;
+
+    public PresenterCollection(@NonNull Collection<T> collection, String next) {
         this.collection = collection;
+        this.next = next;
         size = collection.size();
     }
 
+    public PresenterCollection(@NonNull Collection<T> collection) {
+        this(collection, null);
+    }
+
     public PresenterCollection() {
         this(Collections.emptyList());
     }
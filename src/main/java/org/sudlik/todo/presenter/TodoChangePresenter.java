@@ -0,0 +1,17 @@
+package org.sudlik.todo.presenter;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TodoChangePresenter {
+
+    private long sequence;
+    private String type;
+    private String id;
+    private String description;
+    private String status;
+}
@@ -0,0 +1,21 @@
+package org.sudlik.todo.ui;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class CompleteTodoListPayload {
+
+    @NotEmpty
+    private List<@NotBlank String> ids;
+
+    @NotBlank
+    private String status;
+}
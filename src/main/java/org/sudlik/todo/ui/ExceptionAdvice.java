@@ -1,5 +1,6 @@
 package org.sudlik.todo.ui;
 
+import org.sudlik.todo.ObjectId;
 import org.sudlik.todo.domain.NotNewTodoCanNotBeCompletedException;
 import org.sudlik.todo.presenter.ErrorPresenter;
 import org.springframework.http.HttpStatus;
@@ -11,9 +12,21 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class ExceptionAdvice {
 
+    private final ResponseEntityFactory responseEntityFactory;
+
+    ExceptionAdvice(ResponseEntityFactory responseEntityFactory) {
+        this.responseEntityFactory = responseEntityFactory;
+    }
+
     @ExceptionHandler(NotNewTodoCanNotBeCompletedException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ErrorPresenter> handleNotNewTodoCanNotBeCompleted(NotNewTodoCanNotBeCompletedException ex) {
-        return ResponseEntityFactory.createBadRequest("not new todo can not be completed", ex.id);
+        return responseEntityFactory.createBadRequest("not new todo can not be completed", ObjectId.format(ex.id));
+    }
+
+    @ExceptionHandler(InvalidTodoRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<ErrorPresenter> handleInvalidTodoRequest(InvalidTodoRequestException ex) {
+        return responseEntityFactory.createBadRequest(ex.getMessage(), ex.value);
     }
 }
@@ -0,0 +1,11 @@
+package org.sudlik.todo.ui;
+
+class InvalidTodoRequestException extends RuntimeException {
+    final Object value;
+
+    InvalidTodoRequestException(String message, Object value) {
+        super(message);
+
+        this.value = value;
+    }
+}
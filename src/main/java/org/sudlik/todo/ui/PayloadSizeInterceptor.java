@@ -0,0 +1,39 @@
+package org.sudlik.todo.ui;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records request body sizes as {@code todo.request.payload.size}, tagged like {@code http.server.requests} with the
+ * method and the matched uri template.
+ */
+class PayloadSizeInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    PayloadSizeInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        long contentLength = request.getContentLengthLong();
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+        if (contentLength < 0 || uri == null) {
+            return;
+        }
+
+        DistributionSummary.builder("todo.request.payload.size")
+                .baseUnit("bytes")
+                .tag("method", request.getMethod())
+                .tag("uri", uri.toString())
+                .register(meterRegistry)
+                .record(contentLength);
+    }
+}
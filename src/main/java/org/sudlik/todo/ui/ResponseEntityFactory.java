@@ -1,17 +1,42 @@
 package org.sudlik.todo.ui;
 
 import com.google.common.base.CaseFormat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.sudlik.todo.presenter.ErrorPresenter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
+import javax.validation.ConstraintViolation;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
+/**
+ * Builds the responses of the todo handlers. Bad requests are built by the bean, which counts every one of them as
+ * {@code todo.validation.failures}; everything else is static.
+ */
+@Component
 public class ResponseEntityFactory {
 
-    public static ResponseEntity<ErrorPresenter> createBadRequest(BindingResult bindingResult) {
+    private final Counter validationFailures;
+
+    public ResponseEntityFactory(MeterRegistry meterRegistry) {
+        this.validationFailures = Counter.builder("todo.validation.failures")
+                .description("Requests answered with 400 Bad Request")
+                .register(meterRegistry);
+    }
+
+    public ResponseEntity<ErrorPresenter> createBadRequest(BindingResult bindingResult) {
+        validationFailures.increment();
+
         if (bindingResult.getFieldErrorCount() == 1) {
             ErrorPresenter.ErrorData errorData = createErrorData(Objects.requireNonNull(bindingResult.getFieldError()));
 
@@ -28,6 +53,27 @@ public class ResponseEntityFactory {
         }
     }
 
+    public <T> ResponseEntity<ErrorPresenter> createBadRequest(List<Set<ConstraintViolation<T>>> violationsByIndex) {
+        validationFailures.increment();
+
+        List<ErrorPresenter.ErrorData> errorDataList = new ArrayList<>();
+
+        for (int i = 0; i < violationsByIndex.size(); i++) {
+            for (ConstraintViolation<T> violation : violationsByIndex.get(i)) {
+                errorDataList.add(createErrorData(i, violation));
+            }
+        }
+
+        return createError(HttpStatus.BAD_REQUEST, errorDataList.toArray(ErrorPresenter.ErrorData[]::new));
+    }
+
+    private static ErrorPresenter.ErrorData createErrorData(int index, ConstraintViolation<?> violation) {
+        return new ErrorPresenter.ErrorData(
+                "[" + index + "]." + CaseFormat.LOWER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, violation.getPropertyPath().toString()),
+                violation.getMessage().toLowerCase(),
+                violation.getInvalidValue());
+    }
+
     private static ErrorPresenter.ErrorData createErrorData(FieldError fieldError) {
         String message = fieldError.getDefaultMessage();
 
@@ -41,7 +87,9 @@ public class ResponseEntityFactory {
                 fieldError.getRejectedValue());
     }
 
-    public static ResponseEntity<ErrorPresenter> createBadRequest(String message, Object value) {
+    public ResponseEntity<ErrorPresenter> createBadRequest(String message, Object value) {
+        validationFailures.increment();
+
         return createError(HttpStatus.BAD_REQUEST, message, value);
     }
 
@@ -57,6 +105,56 @@ public class ResponseEntityFactory {
         return createResponseEntity(HttpStatus.OK, body);
     }
 
+    /**
+     * The entity tag follows the version of the data, whatever encoding was negotiated for it, so caches also have to
+     * tell the encodings apart by {@code Accept}.
+     */
+    public static <T> ResponseEntity<T> createOk(T body, String eTag) {
+        return ResponseEntity
+                .ok()
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    public static ResponseEntity<?> createNotModified(String eTag) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+    }
+
+    /**
+     * Weak, because it follows the version of the data rather than the bytes sent: the same version goes out in any
+     * negotiated encoding, compressed or not.
+     */
+    public static String createETag(Object version) {
+        return "W/\"" + version + "\"";
+    }
+
+    public static boolean matchesETag(@Nullable String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        String opaqueTag = stripWeakness(eTag);
+
+        for (String candidate : StringUtils.commaDelimitedListToStringArray(ifNoneMatch)) {
+            candidate = candidate.trim();
+
+            if (candidate.equals("*") || stripWeakness(candidate).equals(opaqueTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String stripWeakness(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
     public static ResponseEntity<ErrorPresenter> createNotFound(String message, Object value) {
         return createError(HttpStatus.NOT_FOUND, message, value);
     }
@@ -1,103 +1,505 @@
 package org.sudlik.todo.ui;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.sudlik.todo.ObjectId;
+import org.sudlik.todo.domain.CompletionResult;
+import org.sudlik.todo.domain.NotNewTodoCanNotBeCompletedException;
+import org.sudlik.todo.domain.TodoChange;
+import org.sudlik.todo.domain.TodoChangeFeed;
 import org.sudlik.todo.domain.TodoEntity;
+import org.sudlik.todo.domain.TodoListVersion;
 import org.sudlik.todo.domain.TodoRepository;
+import org.sudlik.todo.domain.TodoSearch;
+import org.sudlik.todo.presenter.CompletionPresenter;
+import org.sudlik.todo.presenter.CountPresenter;
 import org.sudlik.todo.presenter.PresenterCollection;
+import org.sudlik.todo.presenter.TodoChangePresenter;
 import org.sudlik.todo.presenter.TodoPresenter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 @Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 class TodoController {
 
+    /**
+     * Page size of a search without {@code limit}. A list without {@code limit} is not paged, the way the list was
+     * answered before paging, so clients that ignore {@code next} still get every todo.
+     */
+    static final String DEFAULT_PAGE_LIMIT = "100";
+    static final int MAX_PAGE_LIMIT = 1000;
+
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    static final int MAX_BATCH_SIZE = 10000;
+    static final String DELETED_COUNT_HEADER = "X-Deleted-Count";
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    /**
+     * Binary JSON for service callers, negotiated next to {@code application/json} and {@link MediaType#APPLICATION_CBOR}
+     * on every route that reads or writes a JSON body.
+     */
+    static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    /**
+     * Every route under {@code todos} is also served under this prefix for the list of the named owner; without it
+     * the list is that of {@link TodoEntity#DEFAULT_OWNER}.
+     */
+    static final String OWNER_PREFIX = "owners/{owner:[A-Za-z0-9._-]{1,64}}/";
+
     private TodoRepository todoRepository;
+    private TodoSearch todoSearch;
+    private TodoChangeFeed todoChangeFeed;
+    private Duration changesHeartbeat;
+    private TodoListVersion todoListVersion;
+    private TodoFragmentCache todoFragmentCache;
+    private ResponseEntityFactory responseEntityFactory;
+    private Validator validator;
+    private ObjectWriter exportWriter;
+    private DistributionSummary listedRows;
 
-    TodoController(TodoRepository todoRepository) {
+    TodoController(
+            TodoRepository todoRepository,
+            TodoSearch todoSearch,
+            TodoChangeFeed todoChangeFeed,
+            TodoListVersion todoListVersion,
+            TodoFragmentCache todoFragmentCache,
+            ResponseEntityFactory responseEntityFactory,
+            Validator validator,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${todo.changes.heartbeat:30s}") Duration changesHeartbeat) {
         this.todoRepository = todoRepository;
+        this.todoSearch = todoSearch;
+        this.todoChangeFeed = todoChangeFeed;
+        this.changesHeartbeat = changesHeartbeat;
+        this.todoListVersion = todoListVersion;
+        this.todoFragmentCache = todoFragmentCache;
+        this.responseEntityFactory = responseEntityFactory;
+        this.validator = validator;
+        this.listedRows = DistributionSummary.builder("todo.list.rows")
+                .baseUnit("rows")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.exportWriter = objectMapper
+                .writerFor(TodoPresenter.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @GetMapping(
+            value = {"todos", OWNER_PREFIX + "todos"},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    ResponseEntity<?> listTodos(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        TodoListRequest request = TodoListRequest.parse(owner, status, after, limit);
+
+        return createPageResponse(request, ifNoneMatch, () -> request.isPaged()
+                ? todoRepository.findPage(request.getOwner(), request.getStatus(), request.getAfter(), request.getFetchSize())
+                : todoRepository.findAllAfter(request.getOwner(), request.getStatus(), request.getAfter(), MAX_PAGE_LIMIT));
+    }
+
+    @GetMapping(
+            value = {"todos/search", OWNER_PREFIX + "todos/search"},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    ResponseEntity<?> searchTodos(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "q") String query,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_LIMIT) int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (query.isBlank()) {
+            return responseEntityFactory.createBadRequest("Query can not be blank", query);
+        }
+
+        TodoListRequest request = TodoListRequest.parse(owner, status, after, limit);
+
+        return createPageResponse(request, ifNoneMatch, () -> todoSearch.search(
+                request.getOwner(),
+                query,
+                request.getStatus(),
+                request.getAfter(),
+                request.getFetchSize()));
     }
 
-    @GetMapping(value = "todos", produces = MediaType.APPLICATION_JSON_VALUE)
-    ResponseEntity<?> listTodos(@RequestParam(value = "status", required = false) String status) {
-        Iterable<TodoEntity> todos;
+    @GetMapping(value = {"todos/changes", OWNER_PREFIX + "todos/changes"}, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    ResponseEntity<Flux<ServerSentEvent<TodoChangePresenter>>> streamChanges(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        // A reconnecting browser sends the id of the last event it got, which takes over the query of the first request.
+        String sequence = lastEventId != null ? lastEventId : after;
+        Long afterSequence = null;
 
-        if (status != null) {
-            if (!status.equals(TodoEntity.Status.NEW.toString()) && !status.equals(TodoEntity.Status.COMPLETED.toString())) {
-                return ResponseEntityFactory.createBadRequest("Unknown status", status);
+        if (sequence != null) {
+            try {
+                afterSequence = Long.parseLong(sequence);
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().build();
             }
 
-            todos = todoRepository.findByStatus(TodoEntity.Status.valueOf(status.toUpperCase()));
-        } else {
-            todos = todoRepository.findAll();
+            if (!todoChangeFeed.canResumeAfter(afterSequence)) {
+                return ResponseEntity.status(HttpStatus.GONE).build();
+            }
         }
 
-        List<TodoPresenter> collect = StreamSupport.stream(todos.spliterator(), false)
-                .map(todoEntity -> new TodoPresenter(todoEntity.getId(), todoEntity.getDescription(), todoEntity.getStatus().toString()))
-                .collect(Collectors.toList());
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(createChangeEvents(
+                        todoChangeFeed.changes(owner.orElse(TodoEntity.DEFAULT_OWNER), afterSequence),
+                        changesHeartbeat));
+    }
+
+    @GetMapping(
+            value = {"todos/{id}", OWNER_PREFIX + "todos/{id}"},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    ResponseEntity<?> showTodo(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<TodoEntity> todoEntityOptional = findTodo(owner.orElse(TodoEntity.DEFAULT_OWNER), id);
+
+        if (todoEntityOptional.isEmpty()) {
+            return ResponseEntityFactory.createNotFound("Todo not found", id);
+        }
+
+        String eTag = ResponseEntityFactory.createETag(todoEntityOptional.get().getVersion());
+
+        if (ResponseEntityFactory.matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntityFactory.createNotModified(eTag);
+        }
+
+        return createTodoResponse(todoEntityOptional.get());
+    }
 
-        return ResponseEntity.ok(new PresenterCollection<>(collect));
+    @GetMapping(value = {"todos/export", OWNER_PREFIX + "todos/export"}, produces = APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> exportTodos(
+            @PathVariable(value = "owner", required = false) Optional<String> owner) {
+        StreamingResponseBody body = outputStream -> {
+            try {
+                todoRepository.forEachTodo(owner.orElse(TodoEntity.DEFAULT_OWNER), todoEntity -> {
+                    try {
+                        exportWriter.writeValue(outputStream, createTodoPresenter(todoEntity));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
     }
 
-    @PostMapping(value = "todos", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    ResponseEntity<?> addTodo(@Valid @RequestBody AddTodoPayload payload, BindingResult bindingResult) {
+    @GetMapping(
+            value = {"todos/count", OWNER_PREFIX + "todos/count"},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    ResponseEntity<?> countTodos(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "status", required = false) String status) {
+        return ResponseEntityFactory.createOk(new CountPresenter(count(TodoListRequest.parse(owner, status))));
+    }
+
+    @RequestMapping(value = {"todos", OWNER_PREFIX + "todos"}, method = RequestMethod.HEAD)
+    ResponseEntity<?> countTodoList(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "status", required = false) String status) {
+        return ResponseEntity
+                .ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(count(TodoListRequest.parse(owner, status))))
+                .build();
+    }
+
+    @PostMapping(
+            value = {"todos", OWNER_PREFIX + "todos"},
+            consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    ResponseEntity<?> addTodo(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @Valid @RequestBody AddTodoPayload payload,
+            BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
-            return ResponseEntityFactory.createBadRequest(bindingResult);
+            return responseEntityFactory.createBadRequest(bindingResult);
         }
 
-        TodoEntity todoEntity = new TodoEntity(ObjectId.generate(), payload.getDescription());
+        TodoEntity todoEntity = new TodoEntity(
+                ObjectId.generate(),
+                owner.orElse(TodoEntity.DEFAULT_OWNER),
+                payload.getDescription());
 
         todoRepository.save(todoEntity);
 
-        return ResponseEntityFactory.createCreated(new TodoPresenter(todoEntity.getId(), todoEntity.getDescription(), todoEntity.getStatus().toString()));
+        return ResponseEntityFactory.createCreated(createTodoPresenter(todoEntity));
     }
 
-    @PutMapping(value = "todos/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    ResponseEntity<?> completeTodo(@PathVariable String id, @Valid @RequestBody CompleteTodoPayload payload, BindingResult bindingResult) {
+    @PostMapping(
+            value = {"todos/batch", OWNER_PREFIX + "todos/batch"},
+            consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    ResponseEntity<?> addTodoList(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestBody List<AddTodoPayload> payloads) {
+        if (payloads.size() > MAX_BATCH_SIZE) {
+            return responseEntityFactory.createBadRequest("Too many todos", payloads.size());
+        }
+
+        if (payloads.contains(null)) {
+            return responseEntityFactory.createBadRequest("Todo can not be null", payloads.indexOf(null));
+        }
+
+        List<Set<ConstraintViolation<AddTodoPayload>>> violations = payloads.stream()
+                .map(payload -> validator.validate(payload))
+                .collect(Collectors.toList());
+
+        if (violations.stream().anyMatch(payloadViolations -> !payloadViolations.isEmpty())) {
+            return responseEntityFactory.createBadRequest(violations);
+        }
+
+        List<TodoEntity> todoEntities = payloads.stream()
+                .map(payload -> new TodoEntity(
+                        ObjectId.generate(),
+                        owner.orElse(TodoEntity.DEFAULT_OWNER),
+                        payload.getDescription()))
+                .collect(Collectors.toList());
+
+        todoRepository.saveAll(todoEntities);
+
+        List<TodoPresenter> collect = todoEntities.stream()
+                .map(TodoController::createTodoPresenter)
+                .collect(Collectors.toList());
+
+        return ResponseEntityFactory.createCreated(new PresenterCollection<>(collect));
+    }
+
+    @PutMapping(
+            value = {"todos/{id}", OWNER_PREFIX + "todos/{id}"},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    ResponseEntity<?> completeTodo(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @PathVariable String id,
+            @Valid @RequestBody CompleteTodoPayload payload,
+            BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
-            return ResponseEntityFactory.createBadRequest(bindingResult);
+            return responseEntityFactory.createBadRequest(bindingResult);
         }
 
         if (!payload.getStatus().equals(TodoEntity.Status.COMPLETED.toString())) {
-            return ResponseEntityFactory.createBadRequest("Unexpected status", payload.getStatus());
+            return responseEntityFactory.createBadRequest("Unexpected status", payload.getStatus());
         }
 
-        Optional<TodoEntity> todoEntityOptional = todoRepository.findById(id);
+        String todoOwner = owner.orElse(TodoEntity.DEFAULT_OWNER);
+        Optional<UUID> todoId = ObjectId.parse(id);
 
-        if (todoEntityOptional.isPresent()) {
-            todoEntityOptional.get().complete();
+        if (todoId.isPresent()) {
+            if (todoRepository.completeIfNew(todoOwner, todoId.get())) {
+                todoFragmentCache.invalidate(todoId.get());
 
-            todoRepository.save(todoEntityOptional.get());
+                // With the cache on, a todo cached before is kept there completed, so this read is no round trip.
+                Optional<TodoEntity> todoEntityOptional = findTodo(todoOwner, id);
 
-            return createTodoResponse(todoEntityOptional.get());
-        } else {
-            return ResponseEntityFactory.createNotFound("Todo not found", id);
+                if (todoEntityOptional.isPresent()) {
+                    return createTodoResponse(todoEntityOptional.get());
+                }
+            } else if (findTodo(todoOwner, id).isPresent()) {
+                throw new NotNewTodoCanNotBeCompletedException(todoId.get());
+            }
         }
+
+        return ResponseEntityFactory.createNotFound("Todo not found", id);
     }
 
-    @DeleteMapping(value = "todos/{id}")
-    ResponseEntity<?> removeTodo(@PathVariable String id) {
-        todoRepository.findById(id).ifPresent(todoEntity -> todoRepository.delete(todoEntity));
+    @PutMapping(
+            value = {"todos", OWNER_PREFIX + "todos"},
+            consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    ResponseEntity<?> completeTodoList(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @Valid @RequestBody CompleteTodoListPayload payload,
+            BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return responseEntityFactory.createBadRequest(bindingResult);
+        }
+
+        if (!payload.getStatus().equals(TodoEntity.Status.COMPLETED.toString())) {
+            return responseEntityFactory.createBadRequest("Unexpected status", payload.getStatus());
+        }
+
+        if (payload.getIds().size() > MAX_BATCH_SIZE) {
+            return responseEntityFactory.createBadRequest("Too many todos", payload.getIds().size());
+        }
+
+        Map<String, Optional<UUID>> todoIds = new LinkedHashMap<>();
+
+        for (String id : payload.getIds()) {
+            Optional<UUID> todoId = ObjectId.parse(id);
+
+            todoIds.putIfAbsent(todoId.map(ObjectId::format).orElse(id), todoId);
+        }
+
+        Map<UUID, CompletionResult> results = todoRepository.completeAll(
+                owner.orElse(TodoEntity.DEFAULT_OWNER),
+                todoIds.values()
+                        .stream()
+                        .flatMap(Optional::stream)
+                        .collect(Collectors.toList()));
+
+        todoFragmentCache.invalidateAll(completedIds(results));
+
+        List<CompletionPresenter> collect = todoIds.entrySet()
+                .stream()
+                .map(todoId -> new CompletionPresenter(
+                        todoId.getKey(),
+                        todoId.getValue().map(results::get).orElse(CompletionResult.NOT_FOUND).toString()))
+                .collect(Collectors.toList());
+
+        return ResponseEntityFactory.createOk(new PresenterCollection<>(collect));
+    }
+
+    @DeleteMapping(value = {"todos/{id}", OWNER_PREFIX + "todos/{id}"})
+    ResponseEntity<?> removeTodo(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @PathVariable String id) {
+        findTodo(owner.orElse(TodoEntity.DEFAULT_OWNER), id).ifPresent(todoEntity -> {
+            todoRepository.delete(todoEntity);
+            todoFragmentCache.invalidate(todoEntity.getId());
+        });
 
         return ResponseEntityFactory.createNoContent();
     }
 
-    @DeleteMapping(value = "todos")
-    ResponseEntity<?> eraseTodoList() {
-        todoRepository.deleteAll();
+    @DeleteMapping(value = {"todos", OWNER_PREFIX + "todos"})
+    ResponseEntity<?> eraseTodoList(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "status", required = false) String status) {
+        TodoListRequest request = TodoListRequest.parse(owner, status);
+        int deleted = request.getStatus() != null
+                ? todoRepository.deleteInBulkByOwnerAndStatus(request.getOwner(), request.getStatus())
+                : todoRepository.deleteInBulkByOwner(request.getOwner());
+
+        return ResponseEntity
+                .ok()
+                .header(DELETED_COUNT_HEADER, String.valueOf(deleted))
+                .body(new PresenterCollection<>());
+    }
+
+    /**
+     * Answers not modified when the client has the current version of the owner's list, so the rows are only read
+     * otherwise.
+     */
+    private ResponseEntity<?> createPageResponse(
+            TodoListRequest request,
+            String ifNoneMatch,
+            Supplier<List<TodoEntity>> todos) {
+        String eTag = ResponseEntityFactory.createETag(todoListVersion.current(request.getOwner()));
+
+        if (ResponseEntityFactory.matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntityFactory.createNotModified(eTag);
+        }
 
-        return ResponseEntity.ok(new PresenterCollection<>());
+        TodoPage page = request.toPage(todos.get());
+
+        listedRows.record(page.getSize());
+
+        return ResponseEntityFactory.createOk(page, eTag);
+    }
+
+    private long count(TodoListRequest request) {
+        return request.getStatus() != null
+                ? todoRepository.countByOwnerAndStatus(request.getOwner(), request.getStatus())
+                : todoRepository.countByOwner(request.getOwner());
+    }
+
+    /**
+     * The todo with the id, if it is on the owner's list; ids are unique across owners, so it is read by id alone.
+     */
+    private Optional<TodoEntity> findTodo(String owner, String id) {
+        return ObjectId.parse(id)
+                .flatMap(todoRepository::findById)
+                .filter(todoEntity -> todoEntity.getOwner().equals(owner));
+    }
+
+    static ResponseEntity<TodoPresenter> createTodoResponse(TodoEntity todoEntity) {
+        return ResponseEntityFactory.createOk(
+                createTodoPresenter(todoEntity),
+                ResponseEntityFactory.createETag(todoEntity.getVersion()));
+    }
+
+    /**
+     * Every change as an event named after its type and identified by its sequence, so a reconnecting browser sends
+     * the last one back. A comment every heartbeat lets proxies keep the connection open and a dead one be noticed.
+     */
+    static Flux<ServerSentEvent<TodoChangePresenter>> createChangeEvents(Flux<TodoChange> changes, Duration heartbeat) {
+        return changes
+                .map(change -> ServerSentEvent
+                        .builder(createTodoChangePresenter(change))
+                        .id(String.valueOf(change.getSequence()))
+                        .event(change.getType().toString())
+                        .build())
+                .mergeWith(Flux
+                        .interval(heartbeat)
+                        .map(tick -> ServerSentEvent.<TodoChangePresenter>builder().comment("heartbeat").build()));
+    }
+
+    static TodoChangePresenter createTodoChangePresenter(TodoChange change) {
+        return new TodoChangePresenter(
+                change.getSequence(),
+                change.getType().toString(),
+                change.getId() == null ? null : ObjectId.format(change.getId()),
+                change.getDescription(),
+                change.getStatus() == null ? null : change.getStatus().toString());
+    }
+
+    static List<UUID> completedIds(Map<UUID, CompletionResult> results) {
+        return results.entrySet()
+                .stream()
+                .filter(result -> result.getValue() == CompletionResult.COMPLETED)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
     }
 
-    private static ResponseEntity<TodoPresenter> createTodoResponse(TodoEntity todoEntity) {
-        return ResponseEntityFactory.createOk(new TodoPresenter(todoEntity.getId(), todoEntity.getDescription(), todoEntity.getStatus().toString()));
+    static TodoPresenter createTodoPresenter(TodoEntity todoEntity) {
+        return new TodoPresenter(ObjectId.format(todoEntity.getId()), todoEntity.getDescription(), todoEntity.getStatus().toString());
     }
 }
@@ -0,0 +1,112 @@
+package org.sudlik.todo.ui;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.sudlik.todo.domain.TodoEntity;
+import org.sudlik.todo.presenter.TodoPresenter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * JSON of single todos as they appear in lists, so that a {@link TodoPage} is written from bytes instead of
+ * serializing every todo again. A fragment is only used for the version of the todo it was written from, and a todo
+ * only changes by completion, which advances its version; completing or deleting a todo also drops its fragment right
+ * away. Fragments of erased todos are never asked for again and age out.
+ */
+@Component
+class TodoFragmentCache {
+
+    private static final byte[] COLLECTION_START = "{\"collection\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SIZE = "],\"size\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NEXT = ",\"next\":".getBytes(StandardCharsets.UTF_8);
+
+    private final Cache<UUID, Fragment> fragments;
+    private final ObjectWriter todoWriter;
+    private final ObjectWriter nextWriter;
+
+    TodoFragmentCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${todo.cache.fragments.maximum-weight:64MB}") DataSize maximumWeight) {
+        this.fragments = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight.toBytes())
+                .<UUID, Fragment>weigher((id, fragment) -> fragment.json.length)
+                .recordStats()
+                .build();
+        this.todoWriter = objectMapper.writerFor(TodoPresenter.class);
+        this.nextWriter = objectMapper.writerFor(String.class);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, fragments, "todoFragments");
+    }
+
+    /**
+     * Writes the page as the JSON of a {@link org.sudlik.todo.presenter.PresenterCollection} would be written.
+     */
+    void write(TodoPage page, OutputStream outputStream) throws IOException {
+        outputStream.write(COLLECTION_START);
+
+        boolean first = true;
+
+        for (TodoEntity todo : page.getTodos()) {
+            if (!first) {
+                outputStream.write(',');
+            }
+
+            outputStream.write(get(todo));
+            first = false;
+        }
+
+        outputStream.write(SIZE);
+        outputStream.write(Integer.toString(page.getSize()).getBytes(StandardCharsets.US_ASCII));
+
+        if (page.getNext() != null) {
+            outputStream.write(NEXT);
+            outputStream.write(nextWriter.writeValueAsBytes(page.getNext()));
+        }
+
+        outputStream.write('}');
+    }
+
+    void invalidate(UUID id) {
+        fragments.invalidate(id);
+    }
+
+    void invalidateAll(Iterable<UUID> ids) {
+        fragments.invalidateAll(ids);
+    }
+
+    private byte[] get(TodoEntity todo) throws IOException {
+        Fragment fragment = fragments.getIfPresent(todo.getId());
+
+        if (fragment != null && fragment.version == todo.getVersion()) {
+            return fragment.json;
+        }
+
+        byte[] json = todoWriter.writeValueAsBytes(TodoController.createTodoPresenter(todo));
+
+        fragments.put(todo.getId(), new Fragment(todo.getVersion(), json));
+
+        return json;
+    }
+
+    private static class Fragment {
+
+        final long version;
+        final byte[] json;
+
+        Fragment(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.sudlik.todo.ui;
+
+import lombok.Getter;
+import org.sudlik.todo.ObjectId;
+import org.sudlik.todo.domain.TodoEntity;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The query parameters of the routes that read or erase a list, parsed the same way by {@link TodoController} and
+ * {@code ReactiveTodoController}. A parameter that does not parse throws {@link InvalidTodoRequestException}, which
+ * {@link ExceptionAdvice} answers with the same 400 on both stacks.
+ */
+@Getter
+class TodoListRequest {
+
+    private final String owner;
+    private final TodoEntity.Status status;
+    private final UUID after;
+    private final Integer limit;
+
+    private TodoListRequest(String owner, TodoEntity.Status status, UUID after, Integer limit) {
+        this.owner = owner;
+        this.status = status;
+        this.after = after;
+        this.limit = limit;
+    }
+
+    static TodoListRequest parse(Optional<String> owner, String status) {
+        return parse(owner, status, null, null);
+    }
+
+    /**
+     * A null {@code status}, {@code after} or {@code limit} means every status, the start of the list and no paging.
+     */
+    static TodoListRequest parse(Optional<String> owner, String status, String after, Integer limit) {
+        TodoEntity.Status todoStatus = null;
+
+        if (status != null) {
+            todoStatus = TodoEntity.Status.fromValue(status)
+                    .orElseThrow(() -> new InvalidTodoRequestException("Unknown status", status));
+        }
+
+        UUID afterId = null;
+
+        if (after != null) {
+            afterId = ObjectId.parse(after)
+                    .orElseThrow(() -> new InvalidTodoRequestException("Invalid cursor", after));
+        }
+
+        if (limit != null && (limit < 1 || limit > TodoController.MAX_PAGE_LIMIT)) {
+            throw new InvalidTodoRequestException("Invalid limit", limit);
+        }
+
+        return new TodoListRequest(owner.orElse(TodoEntity.DEFAULT_OWNER), todoStatus, afterId, limit);
+    }
+
+    boolean isPaged() {
+        return limit != null;
+    }
+
+    /**
+     * Rows to read for a page: one more than the limit tells whether another page follows.
+     */
+    int getFetchSize() {
+        return limit + 1;
+    }
+
+    /**
+     * The page of rows read with {@link #getFetchSize()}, with the cursor of the next page when the extra row came back.
+     * Rows read without paging are the whole page.
+     */
+    TodoPage toPage(List<TodoEntity> todos) {
+        if (!isPaged() || todos.size() <= limit) {
+            return new TodoPage(todos, null);
+        }
+
+        List<TodoEntity> page = todos.subList(0, limit);
+
+        return new TodoPage(page, ObjectId.format(page.get(limit - 1).getId()));
+    }
+}
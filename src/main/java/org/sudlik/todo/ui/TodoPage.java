@@ -0,0 +1,51 @@
+package org.sudlik.todo.ui;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.springframework.lang.Nullable;
+import org.sudlik.todo.domain.TodoEntity;
+import org.sudlik.todo.presenter.PresenterCollection;
+import org.sudlik.todo.presenter.TodoPresenter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A page of listed todos. As JSON it is written from the cached fragments of its todos by {@link TodoFragmentCache};
+ * any other encoding serializes it like a {@link PresenterCollection} of {@link TodoPresenter}s.
+ */
+@JsonPropertyOrder({"collection", "size", "next"})
+class TodoPage {
+
+    private final List<TodoEntity> todos;
+
+    @Nullable
+    private final String next;
+
+    TodoPage(List<TodoEntity> todos, @Nullable String next) {
+        this.todos = todos;
+        this.next = next;
+    }
+
+    @JsonIgnore
+    public List<TodoEntity> getTodos() {
+        return todos;
+    }
+
+    public List<TodoPresenter> getCollection() {
+        return todos.stream()
+                .map(TodoController::createTodoPresenter)
+                .collect(Collectors.toList());
+    }
+
+    public int getSize() {
+        return todos.size();
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Nullable
+    public String getNext() {
+        return next;
+    }
+}
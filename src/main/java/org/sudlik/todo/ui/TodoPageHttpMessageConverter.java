@@ -0,0 +1,51 @@
+package org.sudlik.todo.ui;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes {@link TodoPage}s as JSON from their cached fragments, ahead of Jackson. Pages are never read.
+ */
+class TodoPageHttpMessageConverter extends AbstractHttpMessageConverter<TodoPage> {
+
+    private final TodoFragmentCache todoFragmentCache;
+
+    TodoPageHttpMessageConverter(TodoFragmentCache todoFragmentCache) {
+        super(MediaType.APPLICATION_JSON);
+        this.todoFragmentCache = todoFragmentCache;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return TodoPage.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected TodoPage readInternal(Class<? extends TodoPage> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Todo pages are not read", inputMessage);
+    }
+
+    /**
+     * Buffered to send the length up front: Tomcat only leaves a response below the compression threshold alone when
+     * it knows its length.
+     */
+    @Override
+    protected void writeInternal(TodoPage page, HttpOutputMessage outputMessage) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        todoFragmentCache.write(page, buffer);
+        outputMessage.getHeaders().setContentLength(buffer.size());
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,378 @@
+package org.sudlik.todo.ui;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.sudlik.todo.ObjectId;
+import org.sudlik.todo.domain.TodoChangeFeed;
+import org.sudlik.todo.domain.TodoEntity;
+import org.sudlik.todo.domain.TodoRepository;
+import org.sudlik.todo.presenter.TodoChangePresenter;
+import org.sudlik.todo.presenter.TodoPresenter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+public class ReactiveTodoControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private TodoChangeFeed todoChangeFeed;
+
+    @Before
+    public void setUp() {
+        todoRepository.deleteAll();
+    }
+
+    @Test
+    public void addAndListTodos() {
+        TodoPresenter added = addTodo("first todo");
+
+        webTestClient
+                .get()
+                .uri("/todos")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody()
+                .jsonPath("$.size").isEqualTo(1)
+                .jsonPath("$.collection[0].id").isEqualTo(added.getId())
+                .jsonPath("$.collection[0].description").isEqualTo("first todo")
+                .jsonPath("$.collection[0].status").isEqualTo("new");
+    }
+
+    @Test
+    public void listTodosPageByPage() {
+        addTodo("first todo");
+        TodoPresenter second = addTodo("second todo");
+        addTodo("third todo");
+
+        webTestClient
+                .get()
+                .uri("/todos?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size").isEqualTo(2)
+                .jsonPath("$.next").isEqualTo(second.getId());
+
+        webTestClient
+                .get()
+                .uri("/todos?limit=2&after=" + second.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size").isEqualTo(1)
+                .jsonPath("$.next").doesNotExist();
+    }
+
+    @Test
+    public void listWholeListWithoutLimit() {
+        List<TodoEntity> todos = new ArrayList<>();
+
+        for (int i = 0; i <= TodoController.MAX_PAGE_LIMIT; i++) {
+            todos.add(new TodoEntity(ObjectId.generate(), "todo " + i));
+        }
+
+        todoRepository.saveAll(todos);
+
+        webTestClient
+                .get()
+                .uri("/todos")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size").isEqualTo(todos.size())
+                .jsonPath("$.next").doesNotExist();
+    }
+
+    @Test
+    public void listAndEraseTodosOfOwner() {
+        todoRepository.save(new TodoEntity(ObjectId.generate(), "alice", "alice todo"));
+        todoRepository.save(new TodoEntity(ObjectId.generate(), "bob", "bob todo"));
+
+        webTestClient
+                .get()
+                .uri("/owners/alice/todos")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size").isEqualTo(1)
+                .jsonPath("$.collection[0].description").isEqualTo("alice todo");
+
+        webTestClient
+                .delete()
+                .uri("/owners/alice/todos")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(TodoController.DELETED_COUNT_HEADER, "1");
+
+        webTestClient
+                .get()
+                .uri("/owners/bob/todos/count")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(1);
+    }
+
+    @Test
+    public void listTodosNotModified() {
+        addTodo("first todo");
+
+        String eTag = webTestClient
+                .get()
+                .uri("/todos")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient
+                .get()
+                .uri("/todos")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    public void streamTodos() {
+        for (int i = 0; i < 1200; i++) {
+            todoRepository.save(new TodoEntity(
+                    ObjectId.generate(),
+                    "todo " + i,
+                    i % 2 == 0 ? TodoEntity.Status.NEW : TodoEntity.Status.COMPLETED));
+        }
+
+        List<TodoPresenter> streamed = webTestClient
+                .get()
+                .uri("/todos?status=completed")
+                .accept(MediaType.parseMediaType(TodoController.APPLICATION_NDJSON_VALUE))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(TodoController.APPLICATION_NDJSON_VALUE)
+                .returnResult(TodoPresenter.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(Objects.requireNonNull(streamed), hasSize(600));
+        assertThat(streamed, everyItem(hasProperty("status", is("completed"))));
+    }
+
+    @Test
+    public void searchTodos() {
+        TodoPresenter milk = addTodo("buy milk");
+        addTodo("buy bread");
+
+        webTestClient
+                .get()
+                .uri("/todos/search?q=milk buy&status=new")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size").isEqualTo(1)
+                .jsonPath("$.collection[0].id").isEqualTo(milk.getId());
+    }
+
+    @Test
+    public void streamChangesAfterSequence() {
+        long seen = todoChangeFeed.lastSequence();
+        TodoPresenter added = addTodo("streamed todo");
+
+        ServerSentEvent<TodoChangePresenter> event = webTestClient
+                .get()
+                .uri("/todos/changes?after=" + seen)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<TodoChangePresenter>>() {})
+                .getResponseBody()
+                .blockFirst(Duration.ofSeconds(5));
+
+        assertThat(Objects.requireNonNull(event).event(), is("created"));
+        assertThat(event.id(), is(String.valueOf(Objects.requireNonNull(event.data()).getSequence())));
+        assertThat(event.data().getId(), is(added.getId()));
+        assertThat(event.data().getDescription(), is("streamed todo"));
+    }
+
+    @Test
+    public void descriptionCanNotBeBlank() {
+        webTestClient
+                .post()
+                .uri("/todos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("description", " "))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.path").isEqualTo("description")
+                .jsonPath("$.message").isEqualTo("must not be blank");
+    }
+
+    @Test
+    public void addAndShowTodoInBinaryEncodings() throws Exception {
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+        byte[] created = webTestClient
+                .post()
+                .uri("/todos")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .bodyValue(cborMapper.writeValueAsBytes(Map.of("description", "binary todo")))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        String id = cborMapper.readTree(created).get("id").asText();
+
+        byte[] shown = webTestClient
+                .get()
+                .uri("/todos/" + id)
+                .accept(MediaType.parseMediaType(TodoController.APPLICATION_SMILE_VALUE))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(TodoController.APPLICATION_SMILE_VALUE)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(smileMapper.readTree(shown).get("description").asText(), is("binary todo"));
+    }
+
+    @Test
+    public void completeTodo() {
+        TodoPresenter added = addTodo("todo to complete");
+
+        webTestClient
+                .put()
+                .uri("/todos/" + added.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("status", "completed"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("completed");
+
+        webTestClient
+                .put()
+                .uri("/todos/" + added.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("status", "completed"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("not new todo can not be completed");
+    }
+
+    @Test
+    public void completeUnknownTodo() {
+        webTestClient
+                .put()
+                .uri("/todos/" + ObjectId.format(ObjectId.generate()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("status", "completed"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void invalidListParametersAreAnsweredAlikeOnEveryRoute() {
+        webTestClient
+                .get()
+                .uri("/todos?after=not-a-cursor")
+                .accept(MediaType.parseMediaType(TodoController.APPLICATION_NDJSON_VALUE))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("invalid cursor")
+                .jsonPath("$.value").isEqualTo("not-a-cursor");
+
+        webTestClient
+                .get()
+                .uri("/todos/count?status=unknown")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("unknown status")
+                .jsonPath("$.value").isEqualTo("unknown");
+
+        webTestClient
+                .head()
+                .uri("/todos?status=unknown")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void removeAndEraseTodos() {
+        TodoPresenter removed = addTodo("removed todo");
+
+        addTodo("erased todo");
+
+        webTestClient
+                .delete()
+                .uri("/todos/" + removed.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient
+                .delete()
+                .uri("/todos")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(TodoController.DELETED_COUNT_HEADER, "1");
+
+        webTestClient
+                .head()
+                .uri("/todos")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(TodoController.TOTAL_COUNT_HEADER, "0");
+    }
+
+    private TodoPresenter addTodo(String description) {
+        return webTestClient
+                .post()
+                .uri("/todos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("description", description))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(TodoPresenter.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
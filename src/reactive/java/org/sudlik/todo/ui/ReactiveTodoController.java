@@ -0,0 +1,419 @@
+package org.sudlik.todo.ui;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.sudlik.todo.ObjectId;
+import org.sudlik.todo.domain.CompletionResult;
+import org.sudlik.todo.domain.NotNewTodoCanNotBeCompletedException;
+import org.sudlik.todo.domain.ReactiveTodoRepository;
+import org.sudlik.todo.domain.TodoChangeFeed;
+import org.sudlik.todo.domain.TodoEntity;
+import org.sudlik.todo.domain.TodoListVersion;
+import org.sudlik.todo.presenter.CompletionPresenter;
+import org.sudlik.todo.presenter.CountPresenter;
+import org.sudlik.todo.presenter.PresenterCollection;
+import org.sudlik.todo.presenter.TodoChangePresenter;
+import org.sudlik.todo.presenter.TodoPresenter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Valid;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The todo API of {@link TodoController} for the reactive web stack, with the same requests and responses. Handlers
+ * return as soon as the repository call is set up and the response is written when it completes, so no thread waits
+ * for a slow client or a blocking engine. {@code GET /todos} asking for {@code application/x-ndjson} streams the todos
+ * as they are read instead of a page.
+ */
+@Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+class ReactiveTodoController {
+
+    private ReactiveTodoRepository todoRepository;
+    private TodoChangeFeed todoChangeFeed;
+    private TodoListVersion todoListVersion;
+    private TodoFragmentCache todoFragmentCache;
+    private ResponseEntityFactory responseEntityFactory;
+    private Validator validator;
+    private DistributionSummary listedRows;
+    private Duration changesHeartbeat;
+
+    ReactiveTodoController(
+            ReactiveTodoRepository todoRepository,
+            TodoChangeFeed todoChangeFeed,
+            TodoListVersion todoListVersion,
+            TodoFragmentCache todoFragmentCache,
+            ResponseEntityFactory responseEntityFactory,
+            Validator validator,
+            MeterRegistry meterRegistry,
+            @Value("${todo.changes.heartbeat:30s}") Duration changesHeartbeat) {
+        this.todoRepository = todoRepository;
+        this.todoChangeFeed = todoChangeFeed;
+        this.changesHeartbeat = changesHeartbeat;
+        this.todoListVersion = todoListVersion;
+        this.todoFragmentCache = todoFragmentCache;
+        this.responseEntityFactory = responseEntityFactory;
+        this.validator = validator;
+        this.listedRows = DistributionSummary.builder("todo.list.rows")
+                .baseUnit("rows")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    // Also producing */* keeps the page, not the stream, for clients that accept anything.
+    @GetMapping(
+            value = {"todos", TodoController.OWNER_PREFIX + "todos"},
+            produces = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    TodoController.APPLICATION_SMILE_VALUE,
+                    MediaType.APPLICATION_CBOR_VALUE,
+                    MediaType.ALL_VALUE})
+    Mono<ResponseEntity<?>> listTodos(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        TodoListRequest request = TodoListRequest.parse(owner, status, after, limit);
+
+        return createPageResponse(request, ifNoneMatch, () -> request.isPaged()
+                ? todoRepository.findPage(request.getOwner(), request.getStatus(), request.getAfter(), request.getFetchSize())
+                : todoRepository.findAllAfter(request.getOwner(), request.getStatus(), request.getAfter()));
+    }
+
+    @GetMapping(
+            value = {"todos", TodoController.OWNER_PREFIX + "todos"},
+            produces = TodoController.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<Flux<TodoPresenter>> streamTodos(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "after", required = false) String after) {
+        TodoListRequest request = TodoListRequest.parse(owner, status, after, null);
+
+        return createStreamResponse(todoRepository.stream(request.getOwner(), request.getStatus(), request.getAfter()));
+    }
+
+    @GetMapping(
+            value = {"todos/search", TodoController.OWNER_PREFIX + "todos/search"},
+            produces = {MediaType.APPLICATION_JSON_VALUE, TodoController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    Mono<ResponseEntity<?>> searchTodos(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "q") String query,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = TodoController.DEFAULT_PAGE_LIMIT) int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (query.isBlank()) {
+            return Mono.just(responseEntityFactory.createBadRequest("Query can not be blank", query));
+        }
+
+        TodoListRequest request = TodoListRequest.parse(owner, status, after, limit);
+
+        return createPageResponse(request, ifNoneMatch, () -> todoRepository.search(
+                request.getOwner(),
+                query,
+                request.getStatus(),
+                request.getAfter(),
+                request.getFetchSize()));
+    }
+
+    @GetMapping(
+            value = {"todos/changes", TodoController.OWNER_PREFIX + "todos/changes"},
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    ResponseEntity<Flux<ServerSentEvent<TodoChangePresenter>>> streamChanges(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestHeader(value = TodoController.LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        String sequence = lastEventId != null ? lastEventId : after;
+        Long afterSequence = null;
+
+        if (sequence != null) {
+            try {
+                afterSequence = Long.parseLong(sequence);
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            if (!todoChangeFeed.canResumeAfter(afterSequence)) {
+                return ResponseEntity.status(HttpStatus.GONE).build();
+            }
+        }
+
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(TodoController.createChangeEvents(
+                        todoChangeFeed.changes(owner.orElse(TodoEntity.DEFAULT_OWNER), afterSequence),
+                        changesHeartbeat));
+    }
+
+    @GetMapping(
+            value = {"todos/{id}", TodoController.OWNER_PREFIX + "todos/{id}"},
+            produces = {MediaType.APPLICATION_JSON_VALUE, TodoController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    Mono<ResponseEntity<?>> showTodo(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return Mono.justOrEmpty(ObjectId.parse(id))
+                .flatMap(todoId -> todoRepository.findById(owner.orElse(TodoEntity.DEFAULT_OWNER), todoId))
+                .<ResponseEntity<?>>map(todoEntity -> {
+                    String eTag = ResponseEntityFactory.createETag(todoEntity.getVersion());
+
+                    if (ResponseEntityFactory.matchesETag(ifNoneMatch, eTag)) {
+                        return ResponseEntityFactory.createNotModified(eTag);
+                    }
+
+                    return TodoController.createTodoResponse(todoEntity);
+                })
+                .defaultIfEmpty(ResponseEntityFactory.createNotFound("Todo not found", id));
+    }
+
+    @GetMapping(
+            value = {"todos/export", TodoController.OWNER_PREFIX + "todos/export"},
+            produces = TodoController.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<Flux<TodoPresenter>> exportTodos(
+            @PathVariable(value = "owner", required = false) Optional<String> owner) {
+        return createStreamResponse(todoRepository.stream(owner.orElse(TodoEntity.DEFAULT_OWNER), null, null));
+    }
+
+    @GetMapping(
+            value = {"todos/count", TodoController.OWNER_PREFIX + "todos/count"},
+            produces = {MediaType.APPLICATION_JSON_VALUE, TodoController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    Mono<ResponseEntity<?>> countTodos(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "status", required = false) String status) {
+        TodoListRequest request = TodoListRequest.parse(owner, status);
+
+        return todoRepository
+                .count(request.getOwner(), request.getStatus())
+                .map(count -> ResponseEntityFactory.createOk(new CountPresenter(count)));
+    }
+
+    // Same produces as the page, otherwise the implicit HEAD of the GET mappings would be the closer match.
+    @RequestMapping(
+            value = {"todos", TodoController.OWNER_PREFIX + "todos"},
+            method = RequestMethod.HEAD,
+            produces = {
+                    MediaType.APPLICATION_JSON_VALUE,
+                    TodoController.APPLICATION_SMILE_VALUE,
+                    MediaType.APPLICATION_CBOR_VALUE,
+                    MediaType.ALL_VALUE})
+    Mono<ResponseEntity<?>> countTodoList(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "status", required = false) String status) {
+        TodoListRequest request = TodoListRequest.parse(owner, status);
+
+        return todoRepository
+                .count(request.getOwner(), request.getStatus())
+                .map(count -> ResponseEntity
+                        .ok()
+                        .header(TodoController.TOTAL_COUNT_HEADER, String.valueOf(count))
+                        .build());
+    }
+
+    @PostMapping(
+            value = {"todos", TodoController.OWNER_PREFIX + "todos"},
+            consumes = {MediaType.APPLICATION_JSON_VALUE, TodoController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, TodoController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    Mono<ResponseEntity<?>> addTodo(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @Valid @RequestBody Mono<AddTodoPayload> payload) {
+        return payload
+                .flatMap(addTodoPayload -> todoRepository.save(new TodoEntity(
+                        ObjectId.generate(),
+                        owner.orElse(TodoEntity.DEFAULT_OWNER),
+                        addTodoPayload.getDescription())))
+                .<ResponseEntity<?>>map(todoEntity -> ResponseEntityFactory.createCreated(
+                        TodoController.createTodoPresenter(todoEntity)))
+                .onErrorResume(WebExchangeBindException.class, e -> Mono.just(responseEntityFactory.createBadRequest(e)));
+    }
+
+    @PostMapping(
+            value = {"todos/batch", TodoController.OWNER_PREFIX + "todos/batch"},
+            consumes = {MediaType.APPLICATION_JSON_VALUE, TodoController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, TodoController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    Mono<ResponseEntity<?>> addTodoList(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestBody List<AddTodoPayload> payloads) {
+        if (payloads.size() > TodoController.MAX_BATCH_SIZE) {
+            return Mono.just(responseEntityFactory.createBadRequest("Too many todos", payloads.size()));
+        }
+
+        if (payloads.contains(null)) {
+            return Mono.just(responseEntityFactory.createBadRequest("Todo can not be null", payloads.indexOf(null)));
+        }
+
+        List<Set<ConstraintViolation<AddTodoPayload>>> violations = payloads.stream()
+                .map(payload -> validator.validate(payload))
+                .collect(Collectors.toList());
+
+        if (violations.stream().anyMatch(payloadViolations -> !payloadViolations.isEmpty())) {
+            return Mono.just(responseEntityFactory.createBadRequest(violations));
+        }
+
+        List<TodoEntity> todoEntities = payloads.stream()
+                .map(payload -> new TodoEntity(
+                        ObjectId.generate(),
+                        owner.orElse(TodoEntity.DEFAULT_OWNER),
+                        payload.getDescription()))
+                .collect(Collectors.toList());
+
+        return todoRepository
+                .saveAll(todoEntities)
+                .map(saved -> ResponseEntityFactory.createCreated(new PresenterCollection<>(saved.stream()
+                        .map(TodoController::createTodoPresenter)
+                        .collect(Collectors.toList()))));
+    }
+
+    @PutMapping(
+            value = {"todos/{id}", TodoController.OWNER_PREFIX + "todos/{id}"},
+            produces = {MediaType.APPLICATION_JSON_VALUE, TodoController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    Mono<ResponseEntity<?>> completeTodo(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @PathVariable String id,
+            @Valid @RequestBody Mono<CompleteTodoPayload> payload) {
+        String todoOwner = owner.orElse(TodoEntity.DEFAULT_OWNER);
+
+        return payload
+                .flatMap(completeTodoPayload -> {
+                    if (!completeTodoPayload.getStatus().equals(TodoEntity.Status.COMPLETED.toString())) {
+                        return Mono.just(responseEntityFactory.createBadRequest("Unexpected status", completeTodoPayload.getStatus()));
+                    }
+
+                    return Mono.justOrEmpty(ObjectId.parse(id))
+                            .flatMap(todoId -> todoRepository
+                                    .completeIfNew(todoOwner, todoId)
+                                    .doOnNext(completed -> {
+                                        if (completed) {
+                                            todoFragmentCache.invalidate(todoId);
+                                        }
+                                    })
+                                    .flatMap(completed -> completed
+                                            ? todoRepository.findById(todoOwner, todoId).map(TodoController::createTodoResponse)
+                                            : todoRepository.existsById(todoOwner, todoId).flatMap(exists -> exists
+                                                    ? Mono.error(new NotNewTodoCanNotBeCompletedException(todoId))
+                                                    : Mono.empty())))
+                            .<ResponseEntity<?>>map(response -> response)
+                            .defaultIfEmpty(ResponseEntityFactory.createNotFound("Todo not found", id));
+                })
+                .onErrorResume(WebExchangeBindException.class, e -> Mono.just(responseEntityFactory.createBadRequest(e)));
+    }
+
+    @PutMapping(
+            value = {"todos", TodoController.OWNER_PREFIX + "todos"},
+            consumes = {MediaType.APPLICATION_JSON_VALUE, TodoController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, TodoController.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    Mono<ResponseEntity<?>> completeTodoList(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @Valid @RequestBody Mono<CompleteTodoListPayload> payload) {
+        return payload
+                .flatMap(completeTodoListPayload -> {
+                    if (!completeTodoListPayload.getStatus().equals(TodoEntity.Status.COMPLETED.toString())) {
+                        return Mono.just(responseEntityFactory.createBadRequest("Unexpected status", completeTodoListPayload.getStatus()));
+                    }
+
+                    if (completeTodoListPayload.getIds().size() > TodoController.MAX_BATCH_SIZE) {
+                        return Mono.just(responseEntityFactory.createBadRequest("Too many todos", completeTodoListPayload.getIds().size()));
+                    }
+
+                    Map<String, Optional<UUID>> todoIds = new LinkedHashMap<>();
+
+                    for (String id : completeTodoListPayload.getIds()) {
+                        Optional<UUID> todoId = ObjectId.parse(id);
+
+                        todoIds.putIfAbsent(todoId.map(ObjectId::format).orElse(id), todoId);
+                    }
+
+                    return todoRepository
+                            .completeAll(owner.orElse(TodoEntity.DEFAULT_OWNER), todoIds.values()
+                                    .stream()
+                                    .flatMap(Optional::stream)
+                                    .collect(Collectors.toList()))
+                            .doOnNext(results -> todoFragmentCache.invalidateAll(TodoController.completedIds(results)))
+                            .map(results -> ResponseEntityFactory.createOk(new PresenterCollection<>(todoIds.entrySet()
+                                    .stream()
+                                    .map(todoId -> new CompletionPresenter(
+                                            todoId.getKey(),
+                                            todoId.getValue().map(results::get).orElse(CompletionResult.NOT_FOUND).toString()))
+                                    .collect(Collectors.toList()))));
+                })
+                .onErrorResume(WebExchangeBindException.class, e -> Mono.just(responseEntityFactory.createBadRequest(e)));
+    }
+
+    @DeleteMapping(value = {"todos/{id}", TodoController.OWNER_PREFIX + "todos/{id}"})
+    Mono<ResponseEntity<?>> removeTodo(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @PathVariable String id) {
+        return Mono.justOrEmpty(ObjectId.parse(id))
+                .flatMap(todoId -> todoRepository.findById(owner.orElse(TodoEntity.DEFAULT_OWNER), todoId))
+                .flatMap(todoEntity -> todoRepository
+                        .delete(todoEntity)
+                        .doOnSuccess(deleted -> todoFragmentCache.invalidate(todoEntity.getId())))
+                .then(Mono.fromSupplier(ResponseEntityFactory::createNoContent));
+    }
+
+    @DeleteMapping(value = {"todos", TodoController.OWNER_PREFIX + "todos"})
+    Mono<ResponseEntity<?>> eraseTodoList(
+            @PathVariable(value = "owner", required = false) Optional<String> owner,
+            @RequestParam(value = "status", required = false) String status) {
+        TodoListRequest request = TodoListRequest.parse(owner, status);
+
+        return todoRepository
+                .deleteAll(request.getOwner(), request.getStatus())
+                .map(deleted -> ResponseEntity
+                        .ok()
+                        .header(TodoController.DELETED_COUNT_HEADER, String.valueOf(deleted))
+                        .body(new PresenterCollection<>()));
+    }
+
+    /**
+     * Answers not modified when the client has the current version of the owner's list, so the rows are only read
+     * otherwise.
+     */
+    private Mono<ResponseEntity<?>> createPageResponse(
+            TodoListRequest request,
+            String ifNoneMatch,
+            Supplier<Mono<List<TodoEntity>>> todos) {
+        String eTag = ResponseEntityFactory.createETag(todoListVersion.current(request.getOwner()));
+
+        if (ResponseEntityFactory.matchesETag(ifNoneMatch, eTag)) {
+            return Mono.just(ResponseEntityFactory.createNotModified(eTag));
+        }
+
+        return todos.get().map(rows -> {
+            TodoPage page = request.toPage(rows);
+
+            listedRows.record(page.getSize());
+
+            return ResponseEntityFactory.createOk(page, eTag);
+        });
+    }
+
+    private static ResponseEntity<Flux<TodoPresenter>> createStreamResponse(Flux<TodoEntity> todos) {
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.parseMediaType(TodoController.APPLICATION_NDJSON_VALUE))
+                .body(todos.map(TodoController::createTodoPresenter));
+    }
+}
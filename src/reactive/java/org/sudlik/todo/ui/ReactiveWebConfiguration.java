@@ -0,0 +1,85 @@
+package org.sudlik.todo.ui;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolverBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import java.util.List;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+class ReactiveWebConfiguration implements WebFluxConfigurer {
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(TodoController.APPLICATION_NDJSON_VALUE);
+
+    /**
+     * Tomcat is on the class path for the servlet mode and would otherwise be picked; Netty serves every connection
+     * from a few event loop threads.
+     */
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * A client that accepts anything gets JSON, as from Spring MVC, not whichever encoding happens to be registered
+     * first. Errors raised by handlers are negotiated without the route's produces, so they would otherwise go out as
+     * CBOR.
+     */
+    @Override
+    public void configureContentTypeResolver(RequestedContentTypeResolverBuilder builder) {
+        builder.headerResolver();
+        builder.fixedResolver(MediaType.APPLICATION_JSON, MediaType.ALL);
+    }
+
+    /**
+     * Writes {@code application/x-ndjson} a line per element as it is emitted, the way {@code application/stream+json}
+     * is written, and reads it back the same way.
+     */
+    @Bean
+    CodecCustomizer ndjsonCodecCustomizer(ObjectMapper objectMapper) {
+        return configurer -> {
+            MimeType[] mimeTypes = {MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), APPLICATION_NDJSON};
+            Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(objectMapper, mimeTypes);
+
+            encoder.setStreamingMediaTypes(List.of(MediaType.APPLICATION_STREAM_JSON, APPLICATION_NDJSON));
+            configurer.defaultCodecs().jackson2JsonEncoder(encoder);
+            configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper, mimeTypes));
+        };
+    }
+
+    /**
+     * WebFlux only brings Smile along by default. CBOR is written a whole value at a time, which is all the JSON routes
+     * need; the streamed ones stay on {@code application/x-ndjson}.
+     */
+    @Bean
+    CodecCustomizer cborCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        return configurer -> {
+            ObjectMapper objectMapper = builder.factory(new CBORFactory()).build();
+
+            configurer.customCodecs().encoder(new Jackson2CborEncoder(objectMapper, MediaType.APPLICATION_CBOR));
+            configurer.customCodecs().decoder(new Jackson2CborDecoder(objectMapper, MediaType.APPLICATION_CBOR));
+        };
+    }
+
+    /**
+     * Custom codecs come before the default ones, so JSON pages are written from their fragments.
+     */
+    @Bean
+    CodecCustomizer todoPageCodecCustomizer(TodoFragmentCache todoFragmentCache) {
+        return configurer -> configurer.customCodecs().encoder(new TodoPageEncoder(todoFragmentCache));
+    }
+}
@@ -0,0 +1,69 @@
+package org.sudlik.todo.ui;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Encodes {@link TodoPage}s as JSON from their cached fragments, ahead of Jackson.
+ */
+class TodoPageEncoder extends AbstractEncoder<TodoPage> {
+
+    private final TodoFragmentCache todoFragmentCache;
+
+    TodoPageEncoder(TodoFragmentCache todoFragmentCache) {
+        super(MediaType.APPLICATION_JSON);
+        this.todoFragmentCache = todoFragmentCache;
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+        return TodoPage.class.isAssignableFrom(elementType.toClass()) && super.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(
+            Publisher<? extends TodoPage> inputStream,
+            DataBufferFactory bufferFactory,
+            ResolvableType elementType,
+            @Nullable MimeType mimeType,
+            @Nullable Map<String, Object> hints) {
+        return Flux.from(inputStream).map(page -> encodeValue(page, bufferFactory, elementType, mimeType, hints));
+    }
+
+    @Override
+    public DataBuffer encodeValue(
+            TodoPage page,
+            DataBufferFactory bufferFactory,
+            ResolvableType valueType,
+            @Nullable MimeType mimeType,
+            @Nullable Map<String, Object> hints) {
+        DataBuffer buffer = bufferFactory.allocateBuffer();
+        boolean release = true;
+
+        try (OutputStream outputStream = buffer.asOutputStream()) {
+            todoFragmentCache.write(page, outputStream);
+            release = false;
+
+            return buffer;
+        } catch (IOException e) {
+            throw new EncodingException("Todo page could not be written", e);
+        } finally {
+            if (release) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+}
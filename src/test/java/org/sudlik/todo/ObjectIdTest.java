@@ -0,0 +1,94 @@
+package org.sudlik.todo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ObjectIdTest {
+
+    @Test
+    public void generatedIdIsVersion7WithRfcVariant() {
+        UUID id = ObjectId.generate();
+
+        assertThat(id.version(), is(7));
+        assertThat(id.variant(), is(2));
+    }
+
+    @Test
+    public void generatedIdStartsWithCurrentMillis() {
+        long before = System.currentTimeMillis();
+        UUID id = ObjectId.generate();
+
+        assertThat(id.getMostSignificantBits() >>> 16, greaterThanOrEqualTo(before));
+    }
+
+    @Test
+    public void formattedIdIsParsedBack() {
+        for (int i = 0; i < 1000; i++) {
+            UUID id = ObjectId.generate();
+            String formatted = ObjectId.format(id);
+
+            assertThat(formatted, matchesPattern("[0-9a-f]{32}"));
+            assertThat(formatted, is(id.toString().replace("-", "")));
+            assertThat(ObjectId.parse(formatted), is(Optional.of(id)));
+        }
+    }
+
+    @Test
+    public void uppercaseIdIsParsed() {
+        UUID id = ObjectId.generate();
+
+        assertThat(ObjectId.parse(ObjectId.format(id).toUpperCase()), is(Optional.of(id)));
+    }
+
+    @Test
+    public void malformedIdsAreRejected() {
+        String valid = ObjectId.format(ObjectId.generate());
+
+        assertThat(ObjectId.parse(null), is(Optional.empty()));
+        assertThat(ObjectId.parse(""), is(Optional.empty()));
+        assertThat(ObjectId.parse(valid.substring(1)), is(Optional.empty()));
+        assertThat(ObjectId.parse(valid + "0"), is(Optional.empty()));
+        assertThat(ObjectId.parse("g" + valid.substring(1)), is(Optional.empty()));
+        assertThat(ObjectId.parse(valid.substring(0, 31) + "-"), is(Optional.empty()));
+        assertThat(ObjectId.parse(UUID.randomUUID().toString()), is(Optional.empty()));
+    }
+
+    @Test
+    public void idsOfLaterMillisecondsSortAfterEarlierOnes() {
+        long millis = System.currentTimeMillis() + 1;
+        String earlier = ObjectId.format(ObjectId.generate(millis));
+        String later = ObjectId.format(ObjectId.generate(millis + 1));
+
+        assertThat(later, greaterThan(earlier));
+    }
+
+    @Test
+    public void idsOfOneThreadWithinAMillisecondSortInOrderOfCreation() {
+        long millis = System.currentTimeMillis();
+        List<String> ids = new ArrayList<>();
+
+        for (int i = 0; i < 10000; i++) {
+            ids.add(ObjectId.format(ObjectId.generate(millis)));
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i), greaterThan(ids.get(i - 1)));
+        }
+    }
+
+    @Test
+    public void idsOfOneThreadSortInOrderOfCreationWhenTheClockGoesBack() {
+        long millis = System.currentTimeMillis();
+        String earlier = ObjectId.format(ObjectId.generate(millis));
+        String later = ObjectId.format(ObjectId.generate(millis - 1000));
+
+        assertThat(later, greaterThan(earlier));
+    }
+}
@@ -0,0 +1,122 @@
+package org.sudlik.todo.domain;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.lang.Nullable;
+import org.sudlik.todo.ObjectId;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CachingTodoRepositoryTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final AtomicInteger pageLoads = new AtomicInteger();
+    private final AtomicInteger todoLoads = new AtomicInteger();
+    private CachingTodoRepository todoRepository;
+
+    @Before
+    public void setUp() {
+        InMemoryTodoRepository store = new InMemoryTodoRepository();
+
+        todoRepository = new CachingTodoRepository(
+                new ForwardingTodoRepository() {
+                    @Override
+                    protected TodoRepository delegate() {
+                        return store;
+                    }
+
+                    @Override
+                    public Optional<TodoEntity> findById(UUID id) {
+                        todoLoads.incrementAndGet();
+
+                        return store.findById(id);
+                    }
+
+                    @Override
+                    public List<TodoEntity> findPage(
+                            String owner,
+                            @Nullable TodoEntity.Status status,
+                            @Nullable UUID after,
+                            int limit) {
+                        pageLoads.incrementAndGet();
+
+                        return store.findPage(owner, status, after, limit);
+                    }
+                },
+                Caffeine.newBuilder().executor(Runnable::run),
+                Caffeine.newBuilder()
+                        .executor(Runnable::run)
+                        .maximumWeight(1000)
+                        .<CachingTodoRepository.PageKey, List<TodoEntity>>weigher((pageKey, page) -> page.size() + 1));
+    }
+
+    @Test
+    public void writeOfOneOwnerKeepsPagesOfOthers() {
+        todoRepository.save(new TodoEntity(ObjectId.generate(), "alice", "alice todo"));
+        todoRepository.findPage("alice", null, null, PAGE_SIZE);
+
+        todoRepository.save(new TodoEntity(ObjectId.generate(), "bob", "bob todo"));
+        todoRepository.deleteInBulkByOwner("bob");
+
+        assertThat(todoRepository.findPage("alice", null, null, PAGE_SIZE), hasSize(1));
+        assertThat(pageLoads.get(), is(1));
+    }
+
+    @Test
+    public void writeEvictsPagesOfOwnerThatMayListTheTodo() {
+        UUID id = ObjectId.generate();
+
+        todoRepository.save(new TodoEntity(id, "alice", "alice todo"));
+        todoRepository.findPage("alice", null, null, PAGE_SIZE);
+        todoRepository.findPage("alice", TodoEntity.Status.NEW, null, PAGE_SIZE);
+        todoRepository.findPage("alice", TodoEntity.Status.COMPLETED, null, PAGE_SIZE);
+
+        todoRepository.completeIfNew("alice", id);
+
+        assertThat(todoRepository.findPage("alice", null, null, PAGE_SIZE).get(0).getStatus(),
+                is(TodoEntity.Status.COMPLETED));
+        assertThat(todoRepository.findPage("alice", TodoEntity.Status.NEW, null, PAGE_SIZE), is(empty()));
+        assertThat(todoRepository.findPage("alice", TodoEntity.Status.COMPLETED, null, PAGE_SIZE), hasSize(1));
+        assertThat(pageLoads.get(), is(6));
+        assertThat(todoRepository.pages().estimatedSize(), is(3L));
+    }
+
+    @Test
+    public void eraseOfOwnerDropsItsCachedTodos() {
+        UUID kept = ObjectId.generate();
+
+        todoRepository.save(new TodoEntity(ObjectId.generate(), "alice", "alice todo"));
+        todoRepository.save(new TodoEntity(kept, "bob", "bob todo"));
+        todoRepository.findPage("alice", null, null, PAGE_SIZE);
+        todoRepository.findById(kept);
+
+        todoRepository.deleteInBulkByOwner("alice");
+
+        assertThat(todoRepository.findPage("alice", null, null, PAGE_SIZE), is(empty()));
+        assertThat(todoRepository.todos().asMap().keySet(), contains(kept));
+    }
+
+    @Test
+    public void completedTodoIsReadBackFromCache() {
+        UUID id = ObjectId.generate();
+
+        todoRepository.save(new TodoEntity(id, "alice", "alice todo"));
+        long version = todoRepository.findById(id).orElseThrow().getVersion();
+
+        todoRepository.completeIfNew("alice", id);
+        TodoEntity completed = todoRepository.findById(id).orElseThrow();
+
+        assertThat(completed.getStatus(), is(TodoEntity.Status.COMPLETED));
+        assertThat(completed.getVersion(), is(version + 1));
+        assertThat(completed.getDescription(), is("alice todo"));
+        assertThat(todoLoads.get(), is(1));
+    }
+}
@@ -0,0 +1,158 @@
+package org.sudlik.todo.domain;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.sudlik.todo.ObjectId;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CoalescingTodoRepositoryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GroupRecordingTodoRepository engine = new GroupRecordingTodoRepository();
+    private final ExecutorService requests = Executors.newCachedThreadPool();
+
+    @Test
+    public void savesQueuedDuringCommitAreCommittedAsOneGroup() throws Exception {
+        try (CoalescingTodoRepository todoRepository = create()) {
+            Future<?> first = requests.submit(() -> todoRepository.save(todo("first")));
+
+            engine.committing.await();
+
+            List<Future<?>> queued = new ArrayList<>();
+
+            for (int i = 0; i < 10; i++) {
+                String description = "queued " + i;
+
+                queued.add(requests.submit(() -> todoRepository.save(todo(description))));
+            }
+
+            awaitQueued(10);
+            engine.release.countDown();
+            first.get();
+
+            for (Future<?> save : queued) {
+                save.get();
+            }
+
+            assertThat(engine.groupSizes, contains(1, 10));
+            assertThat(engine.count(), is(11L));
+        }
+    }
+
+    @Test
+    public void failingTodoFailsAloneInItsGroup() throws Exception {
+        try (CoalescingTodoRepository todoRepository = create()) {
+            Future<?> first = requests.submit(() -> todoRepository.save(todo("first")));
+
+            engine.committing.await();
+
+            Future<?> good = requests.submit(() -> todoRepository.save(todo("good")));
+
+            awaitQueued(1);
+
+            Future<?> bad = requests.submit(() -> todoRepository.save(todo(GroupRecordingTodoRepository.FAILING)));
+
+            awaitQueued(2);
+            engine.release.countDown();
+            first.get();
+            good.get();
+
+            try {
+                bad.get();
+                throw new AssertionError("Failing todo was saved");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+            }
+
+            assertThat(engine.count(), is(2L));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void saveAfterCloseFails() {
+        CoalescingTodoRepository todoRepository = create();
+
+        engine.release.countDown();
+        todoRepository.close();
+        todoRepository.save(todo("late"));
+    }
+
+    private CoalescingTodoRepository create() {
+        return new CoalescingTodoRepository(engine, 100, 50, Duration.ZERO, meterRegistry);
+    }
+
+    private void awaitQueued(int count) throws InterruptedException {
+        while (meterRegistry.get("todo.writes.queued").gauge().value() < count) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static TodoEntity todo(String description) {
+        return new TodoEntity(ObjectId.generate(), description);
+    }
+
+    /**
+     * Holds the first group commit until released, so that the saves after it queue up, and fails any commit with a
+     * todo described as {@link #FAILING}.
+     */
+    private static class GroupRecordingTodoRepository extends ForwardingTodoRepository {
+
+        static final String FAILING = "failing";
+
+        final List<Integer> groupSizes = new ArrayList<>();
+        final CountDownLatch committing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        private final TodoRepository delegate = new InMemoryTodoRepository();
+
+        @Override
+        protected TodoRepository delegate() {
+            return delegate;
+        }
+
+        @Override
+        public <S extends TodoEntity> S save(S entity) {
+            check(List.of(entity));
+
+            return delegate.save(entity);
+        }
+
+        @Override
+        public <S extends TodoEntity> Iterable<S> saveAll(Iterable<S> entities) {
+            List<S> group = new ArrayList<>();
+
+            entities.forEach(group::add);
+            groupSizes.add(group.size());
+            committing.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+
+            check(group);
+
+            return delegate.saveAll(group);
+        }
+
+        private static void check(Iterable<? extends TodoEntity> entities) {
+            if (StreamSupport.stream(entities.spliterator(), false)
+                    .anyMatch(entity -> entity.getDescription().equals(FAILING))) {
+                throw new IllegalArgumentException("Todo can not be saved");
+            }
+        }
+    }
+}
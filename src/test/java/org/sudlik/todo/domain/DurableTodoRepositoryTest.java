@@ -0,0 +1,154 @@
+package org.sudlik.todo.domain;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sudlik.todo.ObjectId;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class DurableTodoRepositoryTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void todosAreReplayedAfterRestart() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        UUID completed = ObjectId.generate();
+        UUID fresh = ObjectId.generate();
+        UUID deleted = ObjectId.generate();
+
+        try (DurableTodoRepository todoRepository = open(directory, 100)) {
+            todoRepository.save(new TodoEntity(completed, "completed todo"));
+            todoRepository.save(new TodoEntity(fresh, "new todo"));
+            todoRepository.save(new TodoEntity(deleted, "deleted todo"));
+            todoRepository.completeIfNew(TodoEntity.DEFAULT_OWNER, completed);
+            todoRepository.deleteById(deleted);
+        }
+
+        try (DurableTodoRepository todoRepository = open(directory, 100)) {
+            assertThat(todoRepository.count(), is(2L));
+            assertThat(todoRepository.findById(completed).orElseThrow().getStatus(), is(TodoEntity.Status.COMPLETED));
+            assertThat(todoRepository.findById(completed).orElseThrow().getVersion(), is(1L));
+            assertThat(todoRepository.findById(fresh).orElseThrow().getDescription(), is("new todo"));
+            assertThat(todoRepository.existsById(deleted), is(false));
+            assertThat(todoRepository.completeIfNew(TodoEntity.DEFAULT_OWNER, fresh), is(true));
+        }
+    }
+
+    @Test
+    public void snapshotReplacesOlderSegments() throws IOException {
+        Path directory = folder.getRoot().toPath();
+
+        try (DurableTodoRepository todoRepository = open(directory, 2)) {
+            for (int i = 0; i < 500; i++) {
+                UUID id = ObjectId.generate();
+
+                todoRepository.save(new TodoEntity(id, "todo " + i));
+
+                if (i % 2 == 0) {
+                    todoRepository.completeIfNew(TodoEntity.DEFAULT_OWNER, id);
+                }
+            }
+
+            todoRepository.deleteInBulkByOwnerAndStatus(TodoEntity.DEFAULT_OWNER, TodoEntity.Status.COMPLETED);
+        }
+
+        List<Integer> snapshots = numbers(directory, ".snapshot");
+
+        assertThat(snapshots, hasSize(1));
+        assertThat(numbers(directory, ".segment"), everyItem(greaterThanOrEqualTo(snapshots.get(0))));
+
+        try (DurableTodoRepository todoRepository = open(directory, 2)) {
+            assertThat(todoRepository.countByStatus(TodoEntity.Status.NEW), is(250L));
+            assertThat(todoRepository.countByStatus(TodoEntity.Status.COMPLETED), is(0L));
+        }
+    }
+
+    @Test
+    public void eraseOfOneOwnerIsReplayed() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        UUID kept = ObjectId.generate();
+
+        try (DurableTodoRepository todoRepository = open(directory, 100)) {
+            todoRepository.save(new TodoEntity(ObjectId.generate(), "alice", "erased todo"));
+            todoRepository.save(new TodoEntity(kept, "bob", "kept todo"));
+            todoRepository.deleteInBulkByOwner("alice");
+        }
+
+        try (DurableTodoRepository todoRepository = open(directory, 100)) {
+            assertThat(todoRepository.countByOwner("alice"), is(0L));
+            assertThat(todoRepository.countByOwner("bob"), is(1L));
+            assertThat(todoRepository.findById(kept).orElseThrow().getOwner(), is("bob"));
+        }
+    }
+
+    @Test
+    public void writeRefusedByLogIsNotApplied() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        UUID tooLarge = ObjectId.generate();
+        UUID late = ObjectId.generate();
+        UUID kept = ObjectId.generate();
+
+        DurableTodoRepository todoRepository = open(directory, 100);
+
+        todoRepository.save(new TodoEntity(kept, "kept todo"));
+
+        try {
+            todoRepository.save(new TodoEntity(tooLarge, "x".repeat(SEGMENT_SIZE)));
+            throw new AssertionError("Record larger than a segment was logged");
+        } catch (IllegalArgumentException e) {
+            assertThat(todoRepository.existsById(tooLarge), is(false));
+        }
+
+        todoRepository.close();
+
+        try {
+            todoRepository.save(new TodoEntity(late, "late todo"));
+            throw new AssertionError("Todo was logged after close");
+        } catch (IllegalStateException e) {
+            assertThat(todoRepository.existsById(late), is(false));
+        }
+
+        try {
+            todoRepository.completeIfNew(TodoEntity.DEFAULT_OWNER, kept);
+            throw new AssertionError("Todo was completed after close");
+        } catch (IllegalStateException e) {
+            assertThat(todoRepository.findById(kept).orElseThrow().getStatus(), is(TodoEntity.Status.NEW));
+        }
+
+        try {
+            todoRepository.deleteById(kept);
+            throw new AssertionError("Todo was deleted after close");
+        } catch (IllegalStateException e) {
+            assertThat(todoRepository.existsById(kept), is(true));
+        }
+    }
+
+    private static DurableTodoRepository open(Path directory, int snapshotAfterSegments) throws IOException {
+        return DurableTodoRepository.open(directory, SEGMENT_SIZE, Duration.ZERO, snapshotAfterSegments);
+    }
+
+    private static List<Integer> numbers(Path directory, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(suffix))
+                    .map(name -> Integer.valueOf(name.substring(0, name.length() - suffix.length())))
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.sudlik.todo.domain;
+
+import org.junit.Test;
+import org.sudlik.todo.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class InMemoryTodoRepositoryTest {
+
+    private static final int TODOS = 2000;
+    private static final int PAGE_SIZE = 50;
+
+    @Test
+    public void todosBeingCompletedAreNeverMissedByPaging() {
+        InMemoryTodoRepository todoRepository = new InMemoryTodoRepository();
+        List<UUID> ids = new ArrayList<>();
+
+        for (int i = 0; i < TODOS; i++) {
+            UUID id = ObjectId.generate();
+
+            todoRepository.save(new TodoEntity(id, "alice", "todo " + i));
+            ids.add(id);
+        }
+
+        CompletableFuture<Void> completing = CompletableFuture.runAsync(() -> {
+            for (int round = 0; round < 20; round++) {
+                for (UUID id : ids) {
+                    todoRepository.updateStatus("alice", id, TodoEntity.Status.NEW, TodoEntity.Status.COMPLETED);
+                }
+
+                for (UUID id : ids) {
+                    todoRepository.updateStatus("alice", id, TodoEntity.Status.COMPLETED, TodoEntity.Status.NEW);
+                }
+            }
+        });
+
+        while (!completing.isDone()) {
+            List<TodoEntity> listed = todoRepository.findAllAfter("alice", null, null, PAGE_SIZE);
+
+            assertThat(listed, hasSize(TODOS));
+            assertThat(todoRepository.countByOwner("alice"), is((long) TODOS));
+            assertThat(todoRepository.count(), is((long) TODOS));
+        }
+
+        completing.join();
+    }
+
+    @Test
+    public void statusIndexesFollowCompletion() {
+        InMemoryTodoRepository todoRepository = new InMemoryTodoRepository();
+        UUID id = ObjectId.generate();
+
+        todoRepository.save(new TodoEntity(id, "alice", "todo"));
+        todoRepository.completeIfNew("alice", id);
+
+        assertThat(todoRepository.countByOwnerAndStatus("alice", TodoEntity.Status.NEW), is(0L));
+        assertThat(todoRepository.countByOwnerAndStatus("alice", TodoEntity.Status.COMPLETED), is(1L));
+        assertThat(todoRepository.findPage("alice", TodoEntity.Status.NEW, null, PAGE_SIZE), is(empty()));
+        assertThat(todoRepository.findPage("alice", TodoEntity.Status.COMPLETED, null, PAGE_SIZE), hasSize(1));
+        assertThat(todoRepository.findPage("alice", null, null, PAGE_SIZE), hasSize(1));
+    }
+}
@@ -0,0 +1,127 @@
+package org.sudlik.todo.domain;
+
+import org.junit.After;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import org.sudlik.todo.ObjectId;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TodoChangeFeedTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final TodoChangeFeed todoChangeFeed = new TodoChangeFeed(4);
+
+    @After
+    public void tearDown() {
+        todoChangeFeed.close();
+    }
+
+    @Test
+    public void subscriberResumesAfterLastSeenChange() {
+        UUID id = ObjectId.generate();
+
+        todoChangeFeed.created(new TodoEntity(id, "first todo"));
+
+        long seen = todoChangeFeed.lastSequence();
+
+        todoChangeFeed.completed(TodoEntity.DEFAULT_OWNER, id);
+        todoChangeFeed.deleted(TodoEntity.DEFAULT_OWNER, id);
+
+        List<TodoChange> changes = todoChangeFeed.changes(TodoEntity.DEFAULT_OWNER, seen).take(2).collectList().block(TIMEOUT);
+
+        assertThat(
+                changes.stream().map(TodoChange::getType).collect(Collectors.toList()),
+                contains(TodoChange.Type.COMPLETED, TodoChange.Type.DELETED));
+        assertThat(changes.get(0).getSequence(), is(seen + 1));
+        assertThat(changes.get(0).getId(), is(id));
+    }
+
+    @Test
+    public void newSubscriberGetsOnlyLaterChanges() {
+        todoChangeFeed.erased(TodoEntity.DEFAULT_OWNER, null);
+
+        CompletableFuture<List<TodoChange>> changes = todoChangeFeed.changes(TodoEntity.DEFAULT_OWNER, null).take(1).collectList().toFuture();
+
+        todoChangeFeed.erased(TodoEntity.DEFAULT_OWNER, TodoEntity.Status.COMPLETED);
+
+        assertThat(changes.join().get(0).getStatus(), is(TodoEntity.Status.COMPLETED));
+    }
+
+    @Test
+    public void subscriberGetsOnlyChangesOfItsOwner() {
+        CompletableFuture<List<TodoChange>> changes = todoChangeFeed.changes("alice", null).take(2).collectList().toFuture();
+
+        todoChangeFeed.deleted("bob", ObjectId.generate());
+        todoChangeFeed.deleted("alice", ObjectId.generate());
+        todoChangeFeed.erased(null, null);
+
+        assertThat(
+                changes.join().stream().map(TodoChange::getType).collect(Collectors.toList()),
+                contains(TodoChange.Type.DELETED, TodoChange.Type.ERASED));
+        assertThat(changes.join().get(0).getOwner(), is("alice"));
+    }
+
+    @Test
+    public void overwrittenChangesCanNotBeResumed() {
+        long seen = todoChangeFeed.lastSequence();
+
+        for (int i = 0; i < 5; i++) {
+            todoChangeFeed.deleted(TodoEntity.DEFAULT_OWNER, ObjectId.generate());
+        }
+
+        assertThat(todoChangeFeed.canResumeAfter(seen), is(false));
+        assertThat(todoChangeFeed.canResumeAfter(seen + 1), is(true));
+        assertThat(todoChangeFeed.canResumeAfter(todoChangeFeed.lastSequence() + 1), is(false));
+    }
+
+    @Test
+    public void slowSubscriberFailsOnceItFallsBehindRetainedChanges() throws Exception {
+        List<TodoChange> received = new CopyOnWriteArrayList<>();
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        BaseSubscriber<TodoChange> subscriber = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            protected void hookOnNext(TodoChange change) {
+                received.add(change);
+            }
+
+            @Override
+            protected void hookOnError(Throwable throwable) {
+                failure.complete(throwable);
+            }
+        };
+
+        todoChangeFeed.changes(TodoEntity.DEFAULT_OWNER, null).subscribe(subscriber);
+        todoChangeFeed.deleted(TodoEntity.DEFAULT_OWNER, ObjectId.generate());
+
+        while (received.isEmpty()) {
+            Thread.sleep(10);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            todoChangeFeed.deleted(TodoEntity.DEFAULT_OWNER, ObjectId.generate());
+        }
+
+        subscriber.request(10);
+
+        assertThat(failure.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS), instanceOf(ChangesNotRetainedException.class));
+        assertThat(received, hasSize(1));
+        assertThat(todoChangeFeed.subscriberCount(), is(0));
+    }
+}
@@ -0,0 +1,10 @@
+package org.sudlik.todo.ui;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the whole controller suite with new todos saved in group commits.
+ */
+@ActiveProfiles("coalescing")
+public class CoalescingTodoControllerTest extends TodoControllerTest {
+}
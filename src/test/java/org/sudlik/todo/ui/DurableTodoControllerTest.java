@@ -0,0 +1,12 @@
+package org.sudlik.todo.ui;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the whole controller suite against the in-memory engine with the write-ahead log on.
+ */
+@ActiveProfiles("wal")
+@TestPropertySource(properties = "todo.wal.directory=target/test-wal")
+public class DurableTodoControllerTest extends TodoControllerTest {
+}
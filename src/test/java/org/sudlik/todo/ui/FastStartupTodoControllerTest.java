@@ -0,0 +1,13 @@
+package org.sudlik.todo.ui;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the whole controller suite with lazy beans, lazy repositories and the trimmed auto-configuration of the
+ * fast-startup profile. The warm-up stays off, so it can not touch caches and counts the tests check.
+ */
+@ActiveProfiles("fast-startup")
+@TestPropertySource(properties = "todo.startup.warm-up=false")
+public class FastStartupTodoControllerTest extends TodoControllerTest {
+}
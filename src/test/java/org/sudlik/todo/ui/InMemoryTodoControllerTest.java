@@ -0,0 +1,10 @@
+package org.sudlik.todo.ui;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the whole controller suite against the in-memory engine.
+ */
+@ActiveProfiles("memory")
+public class InMemoryTodoControllerTest extends TodoControllerTest {
+}
@@ -1,8 +1,14 @@
 package org.sudlik.todo.ui;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.sudlik.todo.ObjectId;
 import org.sudlik.todo.domain.TodoEntity;
 import org.sudlik.todo.domain.TodoRepository;
+import org.sudlik.todo.presenter.PresenterCollection;
 import org.sudlik.todo.presenter.TodoPresenter;
 import org.junit.Before;
 import org.junit.Test;
@@ -13,9 +19,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @RunWith(SpringRunner.class)
@@ -32,6 +45,9 @@ public class TodoControllerTest {
     @Autowired
     private TodoRepository todoRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Before
     public void setUp() {
         todoRepository.deleteAll();
@@ -69,6 +85,104 @@ public class TodoControllerTest {
         assertNotEmptyTodoList();
     }
 
+    @Test
+    public void addTodoList() throws Exception {
+        List<AddTodoPayload> payloads = List.of(new AddTodoPayload("first description"), new AddTodoPayload("second description"));
+
+        mockMvc
+                .perform(post("/todos/batch")
+                        .content(objectMapper.writeValueAsBytes(payloads))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.collection[*].id").value(everyItem(matchesPattern("^\\p{XDigit}{32}$"))))
+                .andExpect(jsonPath("$.collection[0].description").value("first description"))
+                .andExpect(jsonPath("$.collection[1].description").value("second description"))
+                .andExpect(jsonPath("$.collection[*].status").value(everyItem(is(TodoEntity.Status.NEW.toString()))));
+
+        mockMvc
+                .perform(get("/todos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(2));
+    }
+
+    @Test
+    public void everyDescriptionInListCanNotBeBlank() throws Exception {
+        List<AddTodoPayload> payloads = List.of(
+                new AddTodoPayload("some description"),
+                new AddTodoPayload(" "),
+                new AddTodoPayload(""));
+
+        mockMvc
+                .perform(post("/todos/batch")
+                        .content(objectMapper.writeValueAsBytes(payloads))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.message").value("bad request"))
+                .andExpect(jsonPath("$.errors").value(hasSize(2)))
+                .andExpect(jsonPath("$.errors[0].path").value("[1].description"))
+                .andExpect(jsonPath("$.errors[0].message").value("must not be blank"))
+                .andExpect(jsonPath("$.errors[0].value").value(" "))
+                .andExpect(jsonPath("$.errors[1].path").value("[2].description"))
+                .andExpect(jsonPath("$.errors[1].value").value(""));
+
+        assertEmptyTodoList();
+    }
+
+    @Test
+    public void addTodoInCbor() throws Exception {
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+        MvcResult result = mockMvc
+                .perform(post("/todos")
+                        .content(cborMapper.writeValueAsBytes(new AddTodoPayload("some description")))
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        JsonNode todo = cborMapper.readTree(result.getResponse().getContentAsByteArray());
+
+        assertThat(todo.get("id").asText(), matchesPattern("^\\p{XDigit}{32}$"));
+        assertThat(todo.get("description").asText(), is("some description"));
+        assertThat(todo.get("status").asText(), is(TodoEntity.Status.NEW.toString()));
+
+        result = mockMvc
+                .perform(post("/todos")
+                        .content(cborMapper.writeValueAsBytes(new AddTodoPayload(" ")))
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        assertThat(cborMapper.readTree(result.getResponse().getContentAsByteArray()).get("path").asText(), is("description"));
+    }
+
+    @Test
+    public void listTodosInSmile() throws Exception {
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        TodoPresenter todoPresenter = createNewTodo();
+
+        MvcResult result = mockMvc
+                .perform(get("/todos").accept(TodoController.APPLICATION_SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(TodoController.APPLICATION_SMILE_VALUE))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn();
+        JsonNode todoList = smileMapper.readTree(result.getResponse().getContentAsByteArray());
+
+        assertThat(todoList.get("size").asInt(), is(1));
+        assertThat(todoList.get("collection").get(0).get("id").asText(), is(todoPresenter.getId()));
+
+        mockMvc
+                .perform(get("/todos").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE));
+    }
+
     @Test
     public void completeTodo() throws Exception {
         TodoPresenter todoPresenter = createNewTodo();
@@ -85,6 +199,79 @@ public class TodoControllerTest {
                 .andExpect(jsonPath("$.status").value(TodoEntity.Status.COMPLETED.toString()));
     }
 
+    @Test
+    public void completeUnknownTodo() throws Exception {
+        CompleteTodoPayload completeTodoPayload = new CompleteTodoPayload("completed");
+        String unknownId = "0123456789abcdef0123456789abcdef";
+
+        mockMvc
+                .perform(put("/todos/{id}", unknownId)
+                        .content(objectMapper.writeValueAsBytes(completeTodoPayload))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.message").value("todo not found"))
+                .andExpect(jsonPath("$.value").value(unknownId));
+    }
+
+    @Test
+    public void completeTodoWithMalformedId() throws Exception {
+        CompleteTodoPayload completeTodoPayload = new CompleteTodoPayload("completed");
+
+        mockMvc
+                .perform(put("/todos/{id}", "not-an-id")
+                        .content(objectMapper.writeValueAsBytes(completeTodoPayload))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.message").value("todo not found"))
+                .andExpect(jsonPath("$.value").value("not-an-id"));
+    }
+
+    @Test
+    public void completeTodoList() throws Exception {
+        TodoPresenter newTodo = createNewTodo();
+        TodoPresenter completedTodo = createCompletedTodo();
+        String unknownId = "0123456789abcdef0123456789abcdef";
+        CompleteTodoListPayload completeTodoListPayload = new CompleteTodoListPayload(
+                List.of(newTodo.getId(), completedTodo.getId(), unknownId, newTodo.getId()),
+                "completed");
+
+        mockMvc
+                .perform(put("/todos")
+                        .content(objectMapper.writeValueAsBytes(completeTodoListPayload))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.size").value(3))
+                .andExpect(jsonPath("$.collection[0].id").value(newTodo.getId()))
+                .andExpect(jsonPath("$.collection[0].result").value("completed"))
+                .andExpect(jsonPath("$.collection[1].id").value(completedTodo.getId()))
+                .andExpect(jsonPath("$.collection[1].result").value("not_new"))
+                .andExpect(jsonPath("$.collection[2].id").value(unknownId))
+                .andExpect(jsonPath("$.collection[2].result").value("not_found"));
+
+        mockMvc
+                .perform(get("/todos").queryParam("status", TodoEntity.Status.COMPLETED.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(2));
+    }
+
+    @Test
+    public void todoListCanNotBeCompletedWithUnexpectedStatus() throws Exception {
+        TodoPresenter newTodo = createNewTodo();
+        CompleteTodoListPayload completeTodoListPayload = new CompleteTodoListPayload(List.of(newTodo.getId()), "new");
+
+        mockMvc
+                .perform(put("/todos")
+                        .content(objectMapper.writeValueAsBytes(completeTodoListPayload))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.message").value("unexpected status"))
+                .andExpect(jsonPath("$.value").value("new"));
+    }
+
     @Test
     public void listAllTodos() throws Exception {
         TodoPresenter newTodo = createNewTodo();
@@ -133,6 +320,472 @@ public class TodoControllerTest {
                 .andExpect(jsonPath("$.collection[0].status").value(TodoEntity.Status.COMPLETED.toString()));
     }
 
+    @Test
+    public void listTodosPageByPage() throws Exception {
+        createNewTodo();
+        createNewTodo();
+        createCompletedTodo();
+
+        String response = mockMvc
+                .perform(get("/todos").queryParam("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.collection").value(hasSize(2)))
+                .andExpect(jsonPath("$.next").value(matchesPattern("^\\p{XDigit}{32}$")))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String next = objectMapper.readTree(response).get("next").asText();
+
+        mockMvc
+                .perform(get("/todos").queryParam("limit", "2").queryParam("after", next))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.collection").value(hasSize(1)))
+                .andExpect(jsonPath("$.collection[0].id").value(greaterThan(next)))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    public void listOnlyNewTodoPageByPage() throws Exception {
+        TodoPresenter firstTodo = createNewTodo();
+        TodoPresenter secondTodo = createNewTodo();
+        createCompletedTodo();
+        String lowestId = firstTodo.getId().compareTo(secondTodo.getId()) < 0 ? firstTodo.getId() : secondTodo.getId();
+
+        mockMvc
+                .perform(get("/todos")
+                        .queryParam("status", TodoEntity.Status.NEW.toString())
+                        .queryParam("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.collection[0].id").value(lowestId))
+                .andExpect(jsonPath("$.collection[0].status").value(TodoEntity.Status.NEW.toString()))
+                .andExpect(jsonPath("$.next").value(lowestId));
+    }
+
+    @Test
+    public void listWholeListWithoutLimit() throws Exception {
+        List<TodoEntity> todos = new ArrayList<>();
+
+        for (int i = 0; i <= TodoController.MAX_PAGE_LIMIT; i++) {
+            todos.add(new TodoEntity(ObjectId.generate(), "todo " + i));
+        }
+
+        todoRepository.saveAll(todos);
+
+        mockMvc
+                .perform(get("/todos"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.size").value(todos.size()))
+                .andExpect(jsonPath("$.collection").value(hasSize(todos.size())))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    public void pageLimitMustBeInRange() throws Exception {
+        mockMvc
+                .perform(get("/todos").queryParam("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.message").value("invalid limit"))
+                .andExpect(jsonPath("$.value").value(0));
+    }
+
+    @Test
+    public void cursorMustBeObjectId() throws Exception {
+        mockMvc
+                .perform(get("/todos").queryParam("after", "not an id"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.message").value("invalid cursor"))
+                .andExpect(jsonPath("$.value").value("not an id"));
+    }
+
+    @Test
+    public void listReflectsCompletionAfterBeingCached() throws Exception {
+        TodoPresenter todoPresenter = createNewTodo();
+
+        mockMvc
+                .perform(get("/todos").queryParam("status", TodoEntity.Status.NEW.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1));
+
+        makeTodoCompleted(todoPresenter.getId());
+
+        mockMvc
+                .perform(get("/todos").queryParam("status", TodoEntity.Status.NEW.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(0));
+
+        mockMvc
+                .perform(get("/todos").queryParam("status", TodoEntity.Status.COMPLETED.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.collection[0].status").value(TodoEntity.Status.COMPLETED.toString()));
+    }
+
+    @Test
+    public void cacheStatisticsAreExposed() throws Exception {
+        createNewTodo();
+        double hitsBefore = countCacheHits("todoPages");
+
+        mockMvc.perform(get("/todos")).andExpect(status().isOk());
+        mockMvc.perform(get("/todos")).andExpect(status().isOk());
+
+        assertThat(countCacheHits("todoPages"), greaterThan(hitsBefore));
+    }
+
+    @Test
+    public void listIsWrittenLikePresenterCollection() throws Exception {
+        TodoPresenter first = createNewTodo("first description");
+        createNewTodo("second description");
+
+        mockMvc
+                .perform(get("/todos?limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(
+                        new PresenterCollection<>(List.of(first), first.getId()))));
+
+        double hits = countCacheHits("todoFragments");
+
+        mockMvc
+                .perform(get("/todos?limit=1"))
+                .andExpect(status().isOk());
+
+        assertThat(countCacheHits("todoFragments"), is(hits + 1));
+
+        TodoPresenter completed = makeTodoCompleted(first.getId());
+
+        mockMvc
+                .perform(get("/todos?limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(
+                        new PresenterCollection<>(List.of(completed), first.getId()))));
+    }
+
+    @Test
+    public void listTodosNotModified() throws Exception {
+        createNewTodo();
+
+        String eTag = mockMvc
+                .perform(get("/todos"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc
+                .perform(get("/todos").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+
+        createNewTodo();
+
+        mockMvc
+                .perform(get("/todos").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)))
+                .andExpect(jsonPath("$.size").value(2));
+    }
+
+    @Test
+    public void writeOfOtherOwnerKeepsListNotModified() throws Exception {
+        createNewTodoOf("alice");
+
+        String eTag = mockMvc
+                .perform(get("/owners/{owner}/todos", "alice"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        createNewTodoOf("bob");
+
+        mockMvc
+                .perform(get("/owners/{owner}/todos", "alice").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc
+                .perform(get("/owners/{owner}/todos/search", "alice")
+                        .queryParam("q", "description")
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        createNewTodoOf("alice");
+
+        mockMvc
+                .perform(get("/owners/{owner}/todos", "alice").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(2));
+    }
+
+    @Test
+    public void searchTodos() throws Exception {
+        TodoPresenter milk = createNewTodo("Buy milk, then bread");
+        TodoPresenter bread = createNewTodo("bake BREAD");
+        createNewTodo("buy stamps");
+
+        mockMvc
+                .perform(get("/todos/search").queryParam("q", "bread"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.collection[*].id").value(containsInAnyOrder(milk.getId(), bread.getId())));
+
+        mockMvc
+                .perform(get("/todos/search").queryParam("q", "buy bread"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.collection[0].id").value(milk.getId()))
+                .andExpect(jsonPath("$.collection[0].description").value(milk.getDescription()));
+
+        makeTodoCompleted(bread.getId());
+
+        mockMvc
+                .perform(get("/todos/search")
+                        .queryParam("q", "bread")
+                        .queryParam("status", TodoEntity.Status.COMPLETED.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.collection[0].id").value(bread.getId()))
+                .andExpect(jsonPath("$.collection[0].status").value(TodoEntity.Status.COMPLETED.toString()));
+    }
+
+    @Test
+    public void searchTodosPageByPage() throws Exception {
+        createNewTodo("first bread");
+        createNewTodo("second bread");
+        createNewTodo("third bread");
+        createNewTodo("milk");
+
+        String response = mockMvc
+                .perform(get("/todos/search").queryParam("q", "bread").queryParam("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.next").value(matchesPattern("^\\p{XDigit}{32}$")))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String next = objectMapper.readTree(response).get("next").asText();
+
+        mockMvc
+                .perform(get("/todos/search").queryParam("q", "bread").queryParam("limit", "2").queryParam("after", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.collection[0].id").value(greaterThan(next)))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    public void searchSkipsRemovedTodos() throws Exception {
+        TodoPresenter removed = createNewTodo("removed bread");
+        createCompletedTodo();
+
+        mockMvc.perform(delete("/todos/{id}", removed.getId()));
+
+        mockMvc
+                .perform(get("/todos/search").queryParam("q", "removed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(0));
+
+        createNewTodo("erased bread");
+        mockMvc.perform(delete("/todos"));
+
+        mockMvc
+                .perform(get("/todos/search").queryParam("q", "bread"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(0));
+    }
+
+    @Test
+    public void searchQueryCanNotBeBlank() throws Exception {
+        mockMvc
+                .perform(get("/todos/search").queryParam("q", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.message").value("query can not be blank"));
+    }
+
+    @Test
+    public void streamChanges() throws Exception {
+        mockMvc
+                .perform(get("/todos/changes").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    public void changesCanNotBeResumedFromUnknownSequence() throws Exception {
+        mockMvc
+                .perform(get("/todos/changes").queryParam("after", "1").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isGone());
+
+        mockMvc
+                .perform(get("/todos/changes")
+                        .header(TodoController.LAST_EVENT_ID_HEADER, "not a sequence")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void showTodo() throws Exception {
+        TodoPresenter todoPresenter = createNewTodo();
+
+        String eTag = mockMvc
+                .perform(get("/todos/{id}", todoPresenter.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.id").value(todoPresenter.getId()))
+                .andExpect(jsonPath("$.description").value(todoPresenter.getDescription()))
+                .andExpect(jsonPath("$.status").value(TodoEntity.Status.NEW.toString()))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc
+                .perform(get("/todos/{id}", todoPresenter.getId()).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        makeTodoCompleted(todoPresenter.getId());
+
+        mockMvc
+                .perform(get("/todos/{id}", todoPresenter.getId()).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)))
+                .andExpect(jsonPath("$.status").value(TodoEntity.Status.COMPLETED.toString()));
+    }
+
+    @Test
+    public void showUnknownTodo() throws Exception {
+        String unknownId = "0123456789abcdef0123456789abcdef";
+
+        mockMvc
+                .perform(get("/todos/{id}", unknownId))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.message").value("todo not found"))
+                .andExpect(jsonPath("$.value").value(unknownId));
+    }
+
+    @Test
+    public void metricsAreScraped() throws Exception {
+        createNewTodo();
+
+        mockMvc
+                .perform(post("/todos")
+                        .content(objectMapper.writeValueAsBytes(new AddTodoPayload(" ")))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/todos").queryParam("limit", "10")).andExpect(status().isOk());
+
+        mockMvc
+                .perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("todo_repository_seconds_count{method=\"save\",}")))
+                .andExpect(content().string(containsString("todo_repository_seconds{method=\"findPage\",quantile=\"0.99\",}")))
+                .andExpect(content().string(containsString("todo_list_rows_count")))
+                .andExpect(content().string(containsString("todo_request_payload_size_bytes_count{method=\"POST\",uri=\"/todos\",}")))
+                .andExpect(content().string(containsString("todo_validation_failures_total")))
+                .andExpect(content().string(containsString("todo_count{status=\"new\",} 1.0")))
+                .andExpect(content().string(containsString("todo_count{status=\"completed\",} 0.0")));
+    }
+
+    @Test
+    public void everyBadRequestIsCounted() throws Exception {
+        double before = meterRegistry.get("todo.validation.failures").counter().count();
+
+        mockMvc
+                .perform(post("/todos")
+                        .content(objectMapper.writeValueAsBytes(new AddTodoPayload(" ")))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/todos").queryParam("status", "unknown")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/todos").queryParam("after", "not an id")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/todos").queryParam("limit", "0")).andExpect(status().isBadRequest());
+
+        assertThat(meterRegistry.get("todo.validation.failures").counter().count(), is(before + 4));
+    }
+
+    @Test
+    public void exportTodos() throws Exception {
+        TodoPresenter newTodo = createNewTodo();
+        TodoPresenter completedTodo = createCompletedTodo();
+
+        MvcResult asyncResult = mockMvc
+                .perform(get("/todos/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String response = mockMvc
+                .perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<TodoPresenter> exported = new ArrayList<>();
+
+        for (String line : response.split("\n")) {
+            exported.add(objectMapper.readValue(line, TodoPresenter.class));
+        }
+
+        assertThat(exported, hasSize(2));
+        assertThat(
+                exported.stream().map(TodoPresenter::getId).collect(Collectors.toList()),
+                containsInAnyOrder(newTodo.getId(), completedTodo.getId()));
+        assertThat(
+                exported.stream().map(TodoPresenter::getStatus).collect(Collectors.toList()),
+                containsInAnyOrder(newTodo.getStatus(), completedTodo.getStatus()));
+    }
+
+    @Test
+    public void countTodos() throws Exception {
+        createNewTodo();
+        createNewTodo();
+        createCompletedTodo();
+
+        mockMvc
+                .perform(get("/todos/count"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.count").value(3));
+
+        mockMvc
+                .perform(get("/todos/count").queryParam("status", TodoEntity.Status.NEW.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.count").value(2));
+    }
+
+    @Test
+    public void countTodosInHeader() throws Exception {
+        createNewTodo();
+        createCompletedTodo();
+
+        mockMvc
+                .perform(head("/todos"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "2"))
+                .andExpect(content().string(""));
+
+        mockMvc
+                .perform(head("/todos").queryParam("status", TodoEntity.Status.COMPLETED.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "1"));
+    }
+
     @Test
     public void remoteTodo() throws Exception {
         TodoPresenter todoPresenter = createNewTodo();
@@ -152,6 +805,7 @@ public class TodoControllerTest {
         mockMvc
                 .perform(delete("/todos"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Deleted-Count", "2"))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
                 .andExpect(jsonPath("$.size").value(0))
                 .andExpect(jsonPath("$.collection").value(hasSize(0)));
@@ -159,6 +813,116 @@ public class TodoControllerTest {
         assertEmptyTodoList();
     }
 
+    @Test
+    public void eraseOnlyCompletedTodo() throws Exception {
+        TodoPresenter newTodo = createNewTodo();
+        createCompletedTodo();
+        createCompletedTodo();
+
+        mockMvc
+                .perform(delete("/todos").queryParam("status", TodoEntity.Status.COMPLETED.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Deleted-Count", "2"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE));
+
+        mockMvc
+                .perform(get("/todos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.collection[0].id").value(newTodo.getId()));
+    }
+
+    @Test
+    public void eraseTodoListWithUnknownStatus() throws Exception {
+        createNewTodo();
+
+        mockMvc
+                .perform(delete("/todos").queryParam("status", "unknown"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.message").value("unknown status"))
+                .andExpect(jsonPath("$.value").value("unknown"));
+
+        assertNotEmptyTodoList();
+    }
+
+    @Test
+    public void listTodosOfOwner() throws Exception {
+        TodoPresenter aliceTodo = createNewTodoOf("alice");
+        TodoPresenter defaultTodo = createNewTodo();
+
+        mockMvc
+                .perform(get("/owners/{owner}/todos", "alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.collection[0].id").value(aliceTodo.getId()));
+
+        mockMvc
+                .perform(get("/todos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.collection[0].id").value(defaultTodo.getId()));
+
+        mockMvc
+                .perform(get("/owners/{owner}/todos/count", "bob"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(0));
+    }
+
+    @Test
+    public void todoOfOtherOwnerIsNotFound() throws Exception {
+        TodoPresenter aliceTodo = createNewTodoOf("alice");
+        CompleteTodoPayload completeTodoPayload = new CompleteTodoPayload("completed");
+
+        mockMvc
+                .perform(get("/owners/{owner}/todos/{id}", "bob", aliceTodo.getId()))
+                .andExpect(status().isNotFound());
+
+        mockMvc
+                .perform(put("/owners/{owner}/todos/{id}", "bob", aliceTodo.getId())
+                        .content(objectMapper.writeValueAsBytes(completeTodoPayload))
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isNotFound());
+
+        mockMvc
+                .perform(delete("/owners/{owner}/todos/{id}", "bob", aliceTodo.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc
+                .perform(get("/owners/{owner}/todos/{id}", "alice", aliceTodo.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(TodoEntity.Status.NEW.toString()));
+    }
+
+    @Test
+    public void eraseOnlyTodoListOfOwner() throws Exception {
+        createNewTodoOf("alice");
+        createNewTodoOf("alice");
+        TodoPresenter bobTodo = createNewTodoOf("bob");
+
+        mockMvc
+                .perform(delete("/owners/{owner}/todos", "alice"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Deleted-Count", "2"));
+
+        mockMvc
+                .perform(get("/owners/{owner}/todos", "bob"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.collection[0].id").value(bobTodo.getId()));
+    }
+
+    @Test
+    public void ownerMustBeShortName() throws Exception {
+        mockMvc
+                .perform(get("/owners/{owner}/todos", "a".repeat(65)))
+                .andExpect(status().isNotFound());
+
+        mockMvc
+                .perform(get("/owners/{owner}/todos", "a b"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void notNewTodoCanNotBeCompleted() throws Exception {
         TodoPresenter notNewTodo = createCompletedTodo();
@@ -175,7 +939,11 @@ public class TodoControllerTest {
     }
 
     private TodoPresenter createNewTodo() throws Exception {
-        AddTodoPayload addTodoPayload = new AddTodoPayload("some description");
+        return createNewTodo("some description");
+    }
+
+    private TodoPresenter createNewTodo(String description) throws Exception {
+        AddTodoPayload addTodoPayload = new AddTodoPayload(description);
 
         String response = mockMvc
                 .perform(post("/todos")
@@ -188,6 +956,20 @@ public class TodoControllerTest {
         return objectMapper.readValue(response, TodoPresenter.class);
     }
 
+    private TodoPresenter createNewTodoOf(String owner) throws Exception {
+        AddTodoPayload addTodoPayload = new AddTodoPayload("some description");
+
+        String response = mockMvc
+                .perform(post("/owners/{owner}/todos", owner)
+                .content(objectMapper.writeValueAsBytes(addTodoPayload))
+                .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        return objectMapper.readValue(response, TodoPresenter.class);
+    }
+
     private TodoPresenter createCompletedTodo() throws Exception {
         TodoPresenter todoPresenter = createNewTodo();
 
@@ -208,6 +990,19 @@ public class TodoControllerTest {
         return objectMapper.readValue(response, TodoPresenter.class);
     }
 
+    private double countCacheHits(String cacheName) throws Exception {
+        String response = mockMvc
+                .perform(get("/actuator/metrics/cache.gets")
+                        .queryParam("tag", "cache:" + cacheName)
+                        .queryParam("tag", "result:hit"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        return objectMapper.readTree(response).at("/measurements/0/value").asDouble();
+    }
+
     private void assertEmptyTodoList() throws Exception {
         mockMvc
                 .perform(get("/todos"))
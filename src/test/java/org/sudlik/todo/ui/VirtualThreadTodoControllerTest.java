@@ -0,0 +1,17 @@
+package org.sudlik.todo.ui;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the whole controller suite with virtual threads on; skipped below Java 21, run it with the {@code jdk21} profile.
+ */
+@ActiveProfiles("virtual")
+public class VirtualThreadTodoControllerTest extends TodoControllerTest {
+
+    @BeforeClass
+    public static void requireVirtualThreads() {
+        Assume.assumeTrue(Runtime.version().feature() >= 21);
+    }
+}